@@ -67,6 +67,9 @@ public class Jogo extends SimpleApplication {
         InputAppState input = new InputAppState();
         stateManager.attach(input);
 
+        // Relógio de jogo: os temporizadores dos outros estados disparam no início da frame
+        stateManager.attach(new TimerAppState());
+
         this.player_inv = new Player();
 
         WorldAppState world = new WorldAppState(rootNode, assetManager, physicsSpace, cam, input, player_inv);
@@ -162,6 +165,12 @@ public class Jogo extends SimpleApplication {
             @Override
             protected void onDisable() {}
         });
+
+        // Save automático do mundo e do jogador em segundo plano
+        stateManager.attach(new AutosaveAppState(world, player_inv));
+
+        // Commit das alterações ao mundo (meshes e colisão dos chunks sujos) no fim de cada frame
+        stateManager.attach(new WorldCommitAppState(world));
     }
 
     @Override
@@ -0,0 +1,186 @@
+package jogo.appstate;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.BaseAppState;
+
+import jogo.gameobject.character.Player;
+import jogo.util.save.PlayerSave;
+import jogo.util.timers.TimerWheel;
+import jogo.voxel.VoxelWorld;
+import jogo.voxel.WorldStorage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Guarda o mundo e o jogador periodicamente sem parar o jogo. No thread do jogo só se tira uma
+ * cópia (snapshot): os arrays de voxels dos chunks alterados são partilhados em copy-on-write,
+ * as fornalhas e o inventário são copiados. A serialização, a escrita e o fsync correm no thread de
+ * I/O do {@link WorldStorage} (depois das escritas dos chunks descarregados) enquanto o mundo continua
+ * a mudar. À saída faz um último save, espera por ele e fecha o storage.
+ */
+public class AutosaveAppState extends BaseAppState {
+
+    private static final float AUTOSAVE_INTERVAL = 60f; // segundos entre saves automáticos
+    private static final String PLAYER_FILE = "player.dat";
+
+    private final WorldAppState worldAppState;
+    private final Player player;
+    private TimerWheel timers; // relógio de jogo, cujos temporizadores com nome vão no save do jogador
+
+    // Em tempo real, e não no relógio de jogo: o save corre mesmo com o jogo em pausa
+    private float timer = 0f;
+    // Save em curso: o snapshot fica com o thread do jogo, a escrita com o thread de I/O
+    private WorldStorage.Snapshot pendingSnapshot;
+    private Future<Long> pendingWrite;
+    private long pendingSnapshotNanos;
+
+    // Métricas do último save terminado
+    private long lastWriteMillis = -1;
+    private long lastSnapshotMicros = -1;
+    private long lastCopiedBytes = 0;
+    private int lastChunkCount = 0;
+
+    public AutosaveAppState(WorldAppState worldAppState, Player player) {
+        this.worldAppState = worldAppState;
+        this.player = player;
+    }
+
+    /**
+     * Repõe o estado do jogador guardado junto ao mundo, se existir.
+     * @param app A aplicação.
+     */
+    @Override
+    protected void initialize(Application app) {
+        timers = getStateManager().getState(TimerAppState.class).getTimers();
+        try {
+            if (PlayerSave.load(playerFile(), player, timers)) System.out.println("Player loaded from " + playerFile());
+        } catch (IOException e) {
+            System.err.println("Erro ao carregar o jogador: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Conclui o save em curso quando o thread de escrita termina e inicia um novo a cada
+     * AUTOSAVE_INTERVAL segundos.
+     * @param tpf Tempo desde o último frame.
+     */
+    @Override
+    public void update(float tpf) {
+        if (pendingWrite != null && pendingWrite.isDone()) finishSave();
+        timer += tpf;
+        if (timer >= AUTOSAVE_INTERVAL && pendingWrite == null) {
+            timer = 0f;
+            startSave();
+        }
+    }
+
+    /**
+     * Pede um save imediato (em segundo plano).
+     * @return false se já houver um save em curso.
+     */
+    public boolean requestSave() {
+        if (pendingWrite != null) return false;
+        timer = 0f;
+        return startSave();
+    }
+
+    private boolean startSave() {
+        VoxelWorld voxelWorld = worldAppState.getVoxelWorld();
+        if (voxelWorld == null) return false;
+        WorldStorage storage = worldAppState.getWorldStorage();
+        long start = System.nanoTime();
+        WorldStorage.Snapshot snapshot = storage.snapshot(voxelWorld);
+        PlayerSave playerSave = PlayerSave.snapshot(player, timers);
+        pendingSnapshotNanos = System.nanoTime() - start;
+        pendingSnapshot = snapshot;
+        Path playerFile = playerFile();
+        pendingWrite = storage.submit(() -> {
+            long writeStart = System.nanoTime();
+            storage.write(snapshot);
+            playerSave.write(playerFile);
+            return System.nanoTime() - writeStart;
+        });
+        return true;
+    }
+
+    // Runs on the game thread: ends copy-on-write sharing and reports the save
+    private void finishSave() {
+        WorldStorage.Snapshot snapshot = pendingSnapshot;
+        try {
+            long writeNanos = pendingWrite.get();
+            lastWriteMillis = writeNanos / 1_000_000;
+            lastSnapshotMicros = pendingSnapshotNanos / 1_000;
+            lastChunkCount = snapshot.getChunkCount();
+            lastCopiedBytes = snapshot.release();
+            System.out.println("Autosave: " + lastChunkCount + " chunks written in " + lastWriteMillis + " ms in the background"
+                    + ", snapshot " + lastSnapshotMicros + " us on the game thread, " + snapshot.getSharedBytes() / 1024
+                    + " KiB shared copy-on-write, " + lastCopiedBytes / 1024 + " KiB copied");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            snapshot.markUnsaved();
+            snapshot.release();
+        } catch (ExecutionException e) {
+            System.err.println("Erro ao guardar o mundo: " + e.getCause());
+            snapshot.markUnsaved();
+            snapshot.release();
+        } finally {
+            pendingWrite = null;
+            pendingSnapshot = null;
+        }
+    }
+
+    private Path playerFile() {
+        return worldAppState.getWorldStorage().getDirectory().resolve(PLAYER_FILE);
+    }
+
+    /** Duração da escrita do último save, em milissegundos (-1 se ainda não houve nenhum). */
+    public long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    /** Tempo que o último snapshot ocupou o thread do jogo, em microssegundos. */
+    public long getLastSnapshotMicros() {
+        return lastSnapshotMicros;
+    }
+
+    /** Bytes que os chunks tiveram de copiar por terem sido alterados durante o último save. */
+    public long getLastCopiedBytes() {
+        return lastCopiedBytes;
+    }
+
+    /** Número de chunks escritos no último save. */
+    public int getLastChunkCount() {
+        return lastChunkCount;
+    }
+
+    /**
+     * Espera pelo save em curso, faz o save final e fecha o storage do mundo.
+     * @param app A aplicação.
+     */
+    @Override
+    protected void cleanup(Application app) {
+        if (pendingWrite != null) waitForSave();
+        if (startSave()) waitForSave();
+        worldAppState.getWorldStorage().close();
+    }
+
+    private void waitForSave() {
+        try {
+            pendingWrite.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+            // reported by finishSave
+        }
+        finishSave();
+    }
+
+    @Override
+    protected void onEnable() {}
+
+    @Override
+    protected void onDisable() {}
+}
@@ -953,7 +953,7 @@ public class HudAppState extends BaseAppState {
         VoxelWorld vw = worldAppState.getVoxelWorld();
 
         currentFurnaceCell = cell;
-        currentFurnaceState = vw.getFurnaceState(cell.x, cell.y, cell.z);
+        currentFurnaceState = vw.getBlockEntity(cell.x, cell.y, cell.z, FurnaceState.class);
         furnaceMenuOpen = true;
         inventoryOpen = true;
 
@@ -1027,6 +1027,7 @@ public class HudAppState extends BaseAppState {
         }
 
         if (canPlace) {
+            currentFurnaceState.markChanged(); // volta a ser atualizada e guardada
             System.out.println("Colocado 1x " + itemToPut.getName() + " no slot " + slotName);
         } else {
             System.out.println("Não foi possível colocar. Slot ocupado ou item inválido.");
@@ -1051,6 +1052,7 @@ public class HudAppState extends BaseAppState {
 
         if (added) {
             currentFurnaceState.outputStack = null;
+            currentFurnaceState.markChanged();
             System.out.println("Retirado " + amount + "x " + outputItem.getName() + " da fornalha.");
         } else {
             System.out.println("Inventário cheio! Não foi possível retirar o item.");
@@ -1066,6 +1068,7 @@ public class HudAppState extends BaseAppState {
             exitFurnaceMode();
             return;
         }
+        currentFurnaceState.sync(); // a fornalha é calculada quando observada: alcança o tick atual
 
         // alt
         if (input.consumeExitCraftRequested()) {
@@ -23,6 +23,7 @@ public class InputAppState extends BaseAppState implements ActionListener, Analo
     private volatile boolean interactRequested;
     private float mouseDX, mouseDY;
     private boolean mouseCaptured = true;
+    private boolean paused; // rato libertado com a tecla ToggleMouse
     private boolean movementEnabled = true;
     // Adicionado do  inventário 1
     private volatile boolean placeRequested;
@@ -195,7 +196,11 @@ public class InputAppState extends BaseAppState implements ActionListener, Analo
                 if (isPressed && movementEnabled) jumpRequested = true;
             }
             case "ToggleMouse" -> {
-                if (isPressed) setMouseCaptured(!mouseCaptured);
+                if (isPressed) {
+                    boolean pause = mouseCaptured;
+                    setMouseCaptured(!mouseCaptured);
+                    paused = pause;
+                }
             }
             case "Break" -> {
                 if (isPressed && mouseCaptured) breakRequested = true;
@@ -343,6 +348,7 @@ public class InputAppState extends BaseAppState implements ActionListener, Analo
 
     public void setMouseCaptured(boolean captured) {
         this.mouseCaptured = captured;
+        if (captured) paused = false;
         var im = getApplication().getInputManager();
         im.setCursorVisible(!captured);
         // Clear accumulated deltas when switching state
@@ -354,6 +360,15 @@ public class InputAppState extends BaseAppState implements ActionListener, Analo
         return mouseCaptured;
     }
 
+    /**
+     * Indica se o jogo está em pausa, ou seja, se o jogador libertou o rato com a tecla ToggleMouse
+     * (abrir o inventário liberta o rato mas não pausa). Termina quando o rato volta a ser capturado.
+     * @return true enquanto o jogo estiver em pausa.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
     public boolean consumePlaceRequested() {
         boolean r = placeRequested;
         placeRequested = false;
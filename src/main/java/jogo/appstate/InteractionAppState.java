@@ -15,6 +15,7 @@ import jogo.gameobject.item.food.Bread;
 import jogo.gameobject.item.Item;
 import jogo.gameobject.item.tools.WoodAxe;
 import jogo.gameobject.npc.NPC;
+import jogo.voxel.RayHit;
 import jogo.voxel.VoxelPalette;
 import jogo.voxel.VoxelWorld;
 
@@ -27,6 +28,7 @@ public class InteractionAppState extends BaseAppState {
     private final WorldAppState world;
     private float reach = 5.5f;
     private VoxelWorld.Vector3i targetFurnace = null;
+    private final RayHit blockHit = new RayHit();
 
     public InteractionAppState(Node rootNode, Camera cam, InputAppState input, RenderIndex renderIndex, WorldAppState world) {
         this.rootNode = rootNode;
@@ -77,12 +79,20 @@ public class InteractionAppState extends BaseAppState {
         Vector3f origin = cam.getLocation();
         Vector3f dir = cam.getDirection().normalize();
 
+        VoxelWorld vw = world != null ? world.getVoxelWorld() : null;
+        boolean blockPicked = vw != null && vw.pickFirstSolid(cam, reach, blockHit);
+
         // 1) Try to interact with a rendered GameObject (items)
+        // Terrain meshes use packed vertices that jME ray tests cannot read, so the world node is
+        // skipped here and the voxel DDA distance decides whether a block is in front of the object
         Ray ray = new Ray(origin, dir);
         ray.setLimit(reach);
         CollisionResults results = new CollisionResults();
-        rootNode.collideWith(ray, results);
-        if (results.size() > 0) {
+        for (Spatial child : rootNode.getChildren()) {
+            if (vw != null && containsTerrain(child, vw.getNode())) continue;
+            child.collideWith(ray, results);
+        }
+        if (results.size() > 0 && (!blockPicked || results.getClosestCollision().getDistance() <= blockHit.distance)) {
             Spatial hit = results.getClosestCollision().getGeometry();
             GameObject obj = findRegistered(hit);
             if (obj instanceof NPC npc) {
@@ -98,26 +108,27 @@ public class InteractionAppState extends BaseAppState {
         }
 
         // 2) If no item hit, consider voxel block under crosshair (exercise for students)
-        VoxelWorld vw = world != null ? world.getVoxelWorld() : null;
-        if (vw != null) {
-            vw.pickFirstSolid(cam, reach).ifPresent(hit -> {
-                VoxelWorld.Vector3i cell = hit.cell;
-                System.out.println("TODO (exercise): interact with voxel at " + cell.x + "," + cell.y + "," + cell.z);
+        if (blockPicked) {
+            VoxelWorld.Vector3i cell = blockHit.getCell();
+            System.out.println("TODO (exercise): interact with voxel at " + cell.x + "," + cell.y + "," + cell.z);
 
-                byte blockId = vw.getBlock(cell.x, cell.y, cell.z);
+            byte blockId = vw.getBlock(cell.x, cell.y, cell.z);
 
-                if (blockId == VoxelPalette.FURNACE_ID) {
-                    targetFurnace = cell;
-                    getStateManager().getState(HudAppState.class).enterFurnaceMode(targetFurnace);
-                    System.out.println("A abrir Fornalha em: " + cell.x + "," + cell.y + "," + cell.z);
-                }
-            });
+            if (blockId == VoxelPalette.FURNACE_ID) {
+                targetFurnace = cell;
+                getStateManager().getState(HudAppState.class).enterFurnaceMode(targetFurnace);
+                System.out.println("A abrir Fornalha em: " + cell.x + "," + cell.y + "," + cell.z);
+            }
         }
 
 
     }
 
 
+    private static boolean containsTerrain(Spatial s, Node terrain) {
+        return s == terrain || (s instanceof Node n && terrain.hasAncestor(n));
+    }
+
     private GameObject findRegistered(Spatial s) {
         Spatial cur = s;
         while (cur != null) {
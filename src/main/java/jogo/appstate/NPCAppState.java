@@ -13,6 +13,7 @@ import jogo.gameobject.npc.hostil.Slime;
 import jogo.gameobject.npc.hostil.Zombie;
 import jogo.gameobject.npc.pacifico.Cow;
 import jogo.gameobject.npc.pacifico.Healer;
+import jogo.voxel.VoxelWorld;
 
 import java.util.HashMap;
 import java.util.List;
@@ -155,8 +156,12 @@ public class NPCAppState extends BaseAppState {
 
         if (player == null) return;
 
+        VoxelWorld world = worldAppState.getVoxelWorld();
         for (NPC npc : npcList) {
 
+            // NPCs em colunas de chunks descarregadas ficam parados até o terreno voltar
+            if (world != null && !world.isColumnLoaded((int) Math.floor(npc.getPosition().x), (int) Math.floor(npc.getPosition().z))) continue;
+
             if (npc instanceof Slime slime) {
                 slime.setTarget(player.getPosition());
             }
@@ -13,6 +13,8 @@ import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Node;
 import jogo.gameobject.character.Player;
+import jogo.util.timers.GameTimer;
+import jogo.util.timers.TimerWheel;
 import jogo.voxel.VoxelBlockType;
 import jogo.voxel.VoxelWorld;
 
@@ -29,10 +31,10 @@ public class PlayerAppState extends BaseAppState {
     private BetterCharacterControl characterControl;
     private Player player;
 
-    private float playerDamageTimer = 0.0f;
+    private GameTimer blockDamageTimer; // Dano dos blocos debaixo do jogador, no relógio de jogo
     private static final float DAMAGE_TICK_RATE = 1f;
 
-    private float passiveScoreTimer = 0.0f; // NOVO: Timer para a pontuação passiva
+    private GameTimer passiveScoreTimer; // Timer para a pontuação passiva
     private static final float PASSIVE_SCORE_INTERVAL = 10.0f; // 10 segundos
     private static final int PASSIVE_SCORE_AMOUNT = 1;
 
@@ -96,6 +98,12 @@ public class PlayerAppState extends BaseAppState {
         // Look slightly downward so ground is visible immediately
         this.pitch = -0.35f;
         applyViewToCamera();
+
+        // Fome, dano dos blocos e pontuação passiva correm no relógio de jogo
+        TimerWheel timers = getStateManager().getState(TimerAppState.class).getTimers();
+        if (player != null) player.setTimers(timers);
+        blockDamageTimer = timers.scheduleRepeating(DAMAGE_TICK_RATE, this::applyBlockDamage);
+        passiveScoreTimer = timers.scheduleRepeating(PASSIVE_SCORE_INTERVAL, this::addPassiveScore);
     }
 
     /**
@@ -116,7 +124,7 @@ public class PlayerAppState extends BaseAppState {
         handleInventoryInput();
 
         if (player != null) {
-            player.updateHunger(tpf, input.isSprinting());
+            player.setSprinting(input.isSprinting());
         }
 
         if (player != null && player.consumeDamageFlag()) {
@@ -153,7 +161,7 @@ public class PlayerAppState extends BaseAppState {
             return;
         }
 
-        handlePassiveScore(tpf);
+        player.processScoreQueue();
 
         // handle mouse look
         Vector2f md = input.consumeMouseDelta();
@@ -175,19 +183,6 @@ public class PlayerAppState extends BaseAppState {
         VoxelBlockType blockType = getVoxelBlockTypeUnderPlayer();
 
 
-        playerDamageTimer += tpf;
-        if (blockType != null && playerDamageTimer >= DAMAGE_TICK_RATE) {
-
-            if (blockType.doesDamage()) {
-                int damage = blockType.getDamageAmount();
-                player.takeDamage(damage);
-                System.out.println("Dano do bloco '" + blockType.getName() + "': -" + damage + " | Vida atual: " + player.getHealth());
-            }
-
-            playerDamageTimer = 0.0f;
-        }
-
-
         float blockMultiplier = 1.0f;
 
         if (characterControl.isOnGround() && blockType != null) {
@@ -256,6 +251,8 @@ public class PlayerAppState extends BaseAppState {
 
     @Override
     protected void cleanup(Application app) {
+        if (blockDamageTimer != null) blockDamageTimer.cancel();
+        if (passiveScoreTimer != null) passiveScoreTimer.cancel();
         if (playerNode != null) {
             if (characterControl != null) {
                 physicsSpace.remove(characterControl);
@@ -277,13 +274,6 @@ public class PlayerAppState extends BaseAppState {
     @Override
     protected void onDisable() { }
 
-    public void refreshPhysics() {
-        if (characterControl != null) {
-            physicsSpace.remove(characterControl);
-            physicsSpace.add(characterControl);
-        }
-    }
-
     /**
      * Processa a entrada da roda do rato (scroll) para alternar entre os slots
      * rápidos (0-8) do inventário do jogador.
@@ -360,20 +350,32 @@ public class PlayerAppState extends BaseAppState {
     }
 
     /**
-     * Gere a atribuição passiva de pontuação ao jogador com base em intervalos de tempo fixos.
-     * @param tpf Tempo desde o último frame.
+     * Indica se o jogador está em jogo: vivo, com controlo e com o rato capturado. Os temporizadores
+     * de dano e de pontuação só contam nesse estado, como quando eram acumulados no update.
      */
-    private void handlePassiveScore(float tpf) {
-        if (player == null) return;
-
-        passiveScoreTimer += tpf;
+    private boolean isPlaying() {
+        return player != null && player.getHealth() > 0 && isEnabled() && input.isMouseCaptured();
+    }
 
-        if (passiveScoreTimer >= PASSIVE_SCORE_INTERVAL) {
-            player.addScoreIncrement(PASSIVE_SCORE_AMOUNT);
-            passiveScoreTimer = 0.0f; // Reinicia o timer
+    /**
+     * Aplica o dano do bloco debaixo do jogador (ex.: blocos quentes); chamado a cada DAMAGE_TICK_RATE segundos.
+     */
+    private void applyBlockDamage() {
+        if (!isPlaying()) return;
+        VoxelBlockType blockType = getVoxelBlockTypeUnderPlayer();
+        if (blockType != null && blockType.doesDamage()) {
+            int damage = blockType.getDamageAmount();
+            player.takeDamage(damage);
+            System.out.println("Dano do bloco '" + blockType.getName() + "': -" + damage + " | Vida atual: " + player.getHealth());
         }
+    }
 
-        player.processScoreQueue();
+    /**
+     * Atribui a pontuação passiva ao jogador; chamado a cada PASSIVE_SCORE_INTERVAL segundos.
+     */
+    private void addPassiveScore() {
+        if (!isPlaying()) return;
+        player.addScoreIncrement(PASSIVE_SCORE_AMOUNT);
     }
 
     public Vector3f getPlayerPosition() {
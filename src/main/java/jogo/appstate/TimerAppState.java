@@ -0,0 +1,55 @@
+package jogo.appstate;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.BaseAppState;
+
+import jogo.util.timers.TimerWheel;
+
+/**
+ * Dono do relógio de jogo: avança o {@link TimerWheel} central a cada frame, antes dos estados
+ * que o usam, e é onde os outros estados vão buscá-lo para agendar os seus temporizadores (fome,
+ * dano, pontuação, ticks do mundo, cooldowns dos NPCs). O relógio pára enquanto o jogo estiver em
+ * pausa ({@link InputAppState#isPaused()}) ou o estado estiver desativado. Deve ser anexado depois
+ * do InputAppState e antes dos estados que usam o relógio.
+ */
+public class TimerAppState extends BaseAppState {
+
+    private final TimerWheel timers = new TimerWheel();
+    private InputAppState input;
+
+    /**
+     * Agendador central de temporizadores em tempo de jogo.
+     * @return O TimerWheel partilhado.
+     */
+    public TimerWheel getTimers() {
+        return timers;
+    }
+
+    @Override
+    protected void initialize(Application app) {
+        input = getStateManager().getState(InputAppState.class);
+    }
+
+    /**
+     * Avança o tempo de jogo e executa os temporizadores que chegam ao prazo, exceto com o jogo em pausa.
+     * @param tpf Tempo desde o último frame.
+     */
+    @Override
+    public void update(float tpf) {
+        timers.setPaused(input != null && input.isPaused());
+        timers.advance(tpf);
+    }
+
+    @Override
+    protected void cleanup(Application app) {}
+
+    @Override
+    protected void onEnable() {
+        timers.setPaused(false);
+    }
+
+    @Override
+    protected void onDisable() {
+        timers.setPaused(true);
+    }
+}
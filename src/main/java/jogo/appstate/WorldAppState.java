@@ -11,6 +11,7 @@ import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
 import jogo.engine.GameRegistry;
 import jogo.framework.math.Vec3;
 import jogo.gameobject.GameObject;
@@ -25,10 +26,15 @@ import jogo.gameobject.npc.pacifico.Healer;
 import jogo.util.breakingblocks.BreakingBlockSystem;
 import jogo.util.inventory.ItemRegistry;
 import jogo.util.inventory.Stacks;
-import jogo.voxel.VoxelBlockType;
+import jogo.util.timers.GameTimer;
+import jogo.util.timers.TimerWheel;
+import jogo.voxel.RayHit;
 import jogo.voxel.VoxelPalette;
 import jogo.voxel.VoxelWorld;
+import jogo.voxel.WorldStorage;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,13 +51,12 @@ public class WorldAppState extends BaseAppState {
 
     private BreakingBlockSystem breakingBlockSystem;
 
-    private static final int GRAVITY_RADIUS = 24;
+    private static final float BLOCK_ENTITY_UPDATE_RATE = 0.1f; // Tenta o update mais vezes (10x por seg)
 
-    private float worldTickTimer = 0.0f; // NOVO: Temporizador para o tick do mundo
-    private static final float WORLD_TICK_RATE = 180.0f; // Troca de terra para relva ao fim de 3 minutos
-
-    private float furnaceUpdateTimer = 0.0f; // Timer para o update da fornalha
-    private static final float FURNACE_UPDATE_RATE = 0.1f; // Tenta o update mais vezes (10x por seg)
+    // Relógio de jogo (TimerAppState) e os temporizadores periódicos do mundo
+    private TimerWheel timers;
+    private GameTimer randomTickTimer;
+    private GameTimer blockEntityTimer;
 
     private List<NPC> npcList = new ArrayList<>();
 
@@ -62,6 +67,15 @@ public class WorldAppState extends BaseAppState {
     private Node worldNode;
     private VoxelWorld voxelWorld;
     private com.jme3.math.Vector3f spawnPosition;
+    // Mundo guardado em disco (region files); carregado no arranque, guardado pelo AutosaveAppState
+    private final WorldStorage worldStorage = new WorldStorage(Paths.get("saves", "world"));
+    // Entidades com física, além do jogador, que precisam de terreno com colisão por perto
+    private final List<Spatial> physicsAnchors = new ArrayList<>();
+    private final List<Vector3f> anchorPositions = new ArrayList<>();
+    // Bloco na mira, reutilizado pelos raycasts de quebrar e colocar
+    private final RayHit pick = new RayHit();
+    // Raio, em colunas de chunks, da área carregada antes da primeira frame
+    private static final int SPAWN_AREA_RADIUS = 3;
 
     public WorldAppState(Node rootNode, AssetManager assetManager, PhysicsSpace physicsSpace, Camera cam, InputAppState input, Player player) {
         this.rootNode = rootNode;
@@ -81,6 +95,7 @@ public class WorldAppState extends BaseAppState {
     protected void initialize(Application app) {
         worldNode = new Node("World");
         rootNode.attachChild(worldNode);
+        timers = getStateManager().getState(TimerAppState.class).getTimers();
 
         // Lighting
         AmbientLight ambient = new AmbientLight();
@@ -92,18 +107,24 @@ public class WorldAppState extends BaseAppState {
         sun.setColor(ColorRGBA.White.mult(0.85f)); // slightly dimmer sun
         worldNode.addLight(sun);
 
-        // Voxel world 16x16x16 (reduced size for simplicity)
-        voxelWorld = new VoxelWorld(assetManager, 320, 32, 320);
-        voxelWorld.generateLayers();
+        // Voxel world 32 blocks high, unbounded along x and z and streamed around the player
+        voxelWorld = new VoxelWorld(assetManager, 32);
+        voxelWorld.setStorage(worldStorage);
+        loadOrGenerateWorld();
         voxelWorld.buildMeshes();
         voxelWorld.clearAllDirtyFlags();
         worldNode.attachChild(voxelWorld.getNode());
-        voxelWorld.buildPhysics(physicsSpace);
 
-        breakingBlockSystem = new BreakingBlockSystem(voxelWorld);
+        breakingBlockSystem = new BreakingBlockSystem(voxelWorld, timers);
+
+        // Ticks aleatórios dos blocos "vivos" (ex.: terra que passa a relva) e block entities (fornalhas, ...)
+        randomTickTimer = timers.scheduleRepeating(VoxelWorld.RANDOM_TICK_INTERVAL, voxelWorld::randomTick);
+        blockEntityTimer = timers.scheduleRepeating(BLOCK_ENTITY_UPDATE_RATE, () -> voxelWorld.updateBlockEntities(BLOCK_ENTITY_UPDATE_RATE));
 
         // compute recommended spawn
         spawnPosition = voxelWorld.getRecommendedSpawn();
+        // Terrain physics only around the spawn for now; it follows the player from then on
+        voxelWorld.buildPhysics(physicsSpace, List.of(spawnPosition));
 
         spawnNPCs();
     }
@@ -116,30 +137,32 @@ public class WorldAppState extends BaseAppState {
         return voxelWorld;
     }
 
+    public WorldStorage getWorldStorage() {
+        return worldStorage;
+    }
+
     @Override
     public void update(float tpf) {
-        setBreakingBlockSystem(tpf);
-        checkFallingBlocks();
+        processBlockUpdates();
         setBrokenBlockToInventory();
         setPlacedBlockInWorld();
-        setFurnaceUpdateTimer(tpf);
 
         if (input != null && input.consumeToggleShadingRequested()) {
             voxelWorld.toggleRenderDebug();
         }
 
-        worldTickTimer += tpf;
-        if (worldTickTimer >= WORLD_TICK_RATE) {
-            // Chama a iteração do mundo para fazer os "ticks" nos blocos
-            if (playerAppState != null && playerAppState.getPlayerPosition() != null) {
-                voxelWorld.updateTickableBlocks(playerAppState.getPlayerPosition(), WORLD_TICK_RATE, physicsSpace);
-            }
-            worldTickTimer = 0.0f;
-        }
-
         if (input != null && input.consumeDropRequested()) {
             handleDropOrPickup();
         }
+
+        // Colunas de chunks carregadas em redor do jogador; as afastadas são descarregadas
+        if (playerAppState != null && playerAppState.getPlayerPosition() != null) {
+            voxelWorld.updateStreaming(playerAppState.getPlayerPosition(), physicsSpace);
+        }
+
+        // Física dos chunks só perto do jogador e das outras âncoras
+        updatePhysicsStreaming();
+        // Meshes e colisão dos chunks alterados são reconstruídas no fim da frame pelo WorldCommitAppState
     }
 
     @Override
@@ -158,10 +181,63 @@ public class WorldAppState extends BaseAppState {
             worldNode = null;
         }
 
+        if (randomTickTimer != null) randomTickTimer.cancel();
+        if (blockEntityTimer != null) blockEntityTimer.cancel();
+
         if (breakingBlockSystem != null) {
             breakingBlockSystem.cleanup();
             breakingBlockSystem = null;
         }
+
+        if (voxelWorld != null) {
+            voxelWorld.removePhysics(physicsSpace);
+            voxelWorld.shutdown();
+        }
+    }
+
+    /**
+     * Carrega o mundo guardado em disco (seed, paleta e fornalhas); se não existir (ou não puder ser lido),
+     * começa um novo. Em ambos os casos só é carregada já a área em redor do spawn: o resto chega por streaming.
+     */
+    private void loadOrGenerateWorld() {
+        long start = System.nanoTime();
+        boolean loaded = false;
+        try {
+            loaded = worldStorage.load(voxelWorld);
+            if (loaded) System.out.println("World loaded from " + worldStorage.getDirectory() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            System.err.println("Erro ao carregar o mundo, a gerar um novo: " + e.getMessage());
+        }
+        voxelWorld.loadSpawnArea(SPAWN_AREA_RADIUS);
+        if (loaded) return;
+        try {
+            // Guarda já a seed, para que os chunks descarregados sejam lidos com o mundo certo
+            worldStorage.save(voxelWorld);
+        } catch (IOException e) {
+            System.err.println("Erro ao guardar o mundo novo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Regista uma entidade com física (além do jogador) em redor da qual o terreno deve ter colisão.
+     * @param anchor Nó da entidade.
+     */
+    public void registerPhysicsAnchor(Spatial anchor) {
+        physicsAnchors.add(anchor);
+    }
+
+    public void unregisterPhysicsAnchor(Spatial anchor) {
+        physicsAnchors.remove(anchor);
+    }
+
+    private void updatePhysicsStreaming() {
+        if (voxelWorld == null || physicsSpace == null) return;
+        anchorPositions.clear();
+        if (playerAppState != null && playerAppState.getPlayerPosition() != null) {
+            anchorPositions.add(playerAppState.getPlayerPosition());
+        }
+        for (Spatial anchor : physicsAnchors) anchorPositions.add(anchor.getWorldTranslation());
+        if (!anchorPositions.isEmpty()) voxelWorld.updatePhysicsStreaming(physicsSpace, anchorPositions);
     }
 
     /**
@@ -181,69 +257,12 @@ public class WorldAppState extends BaseAppState {
     }
 
     /**
-     * Verifica blocos afetados pela gravidade num raio em redor do jogador.
-     * Se um bloco (como areia) não tiver um bloco sólido por baixo, ele cai.
+     * Processa as atualizações de blocos agendadas pelo mundo (por exemplo areia que perdeu o suporte).
+     * Os chunks alterados são reconstruídos no commit do fim da frame.
      */
-    private void checkFallingBlocks() {
-        if (voxelWorld == null || physicsSpace == null) return;
-
-        boolean worldChanged = false;
-
-        Vector3f playerPos = playerAppState.getPlayerPosition();
-
-        int px = (int) playerPos.x;
-        int py = (int) playerPos.y;
-        int pz = (int) playerPos.z;
-
-        int minX = Math.max(0, px - GRAVITY_RADIUS);
-        int maxX = Math.min(voxelWorld.getSizeX() - 1, px + GRAVITY_RADIUS);
-
-        int minY = Math.max(1, py - GRAVITY_RADIUS);
-        int maxY = Math.min(voxelWorld.getSizeY() - 1, py + GRAVITY_RADIUS);
-
-        int minZ = Math.max(0, pz - GRAVITY_RADIUS);
-        int maxZ = Math.min(voxelWorld.getSizeZ() - 1, pz + GRAVITY_RADIUS);
-
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-                for (int z = minZ; z <= maxZ; z++) {
-
-                    byte id = voxelWorld.getBlock(x, y, z);
-                    if (id == VoxelPalette.AIR_ID) continue;
-
-                    VoxelBlockType type = voxelWorld.getPalette().get(id);
-
-                    if (type.isAffectedByGravity()) {
-                        byte belowId = voxelWorld.getBlock(x, y - 1, z);
-                        VoxelBlockType belowType = voxelWorld.getPalette().get(belowId);
-
-                        if (!belowType.isSolid()) {
-                            // Faz o bloco cair
-                            voxelWorld.setBlock(x, y, z, VoxelPalette.AIR_ID);
-                            voxelWorld.setBlock(x, y - 1, z, id);
-                            worldChanged = true;
-                        }
-                    }
-                }
-            }
-        }
-
-        if (worldChanged) {
-            voxelWorld.rebuildDirtyChunks(physicsSpace);
-            if (playerAppState != null) {
-                playerAppState.refreshPhysics();
-            }
-        }
-    }
-
-    /**
-     * Atualiza o progresso de quebra de blocos baseado no tempo decorrido.
-     * @param tpf Tempo desde o último frame.
-     */
-    public void setBreakingBlockSystem(float tpf) {
-        if (breakingBlockSystem != null) {
-            breakingBlockSystem.update(tpf);
-        }
+    private void processBlockUpdates() {
+        if (voxelWorld == null) return;
+        voxelWorld.processBlockUpdates();
     }
 
     /**
@@ -252,10 +271,8 @@ public class WorldAppState extends BaseAppState {
      */
     public void setBrokenBlockToInventory() {
         if (input != null && input.isMouseCaptured() && input.consumeBreakRequested()) {
-            var pick = voxelWorld.pickFirstSolid(cam, 6f);
-            pick.ifPresent(hit -> {
-                VoxelWorld.Vector3i cell = hit.cell;
-                byte blockId = voxelWorld.getBlock(cell.x, cell.y, cell.z);
+            if (voxelWorld.pickFirstSolid(cam, 6f, pick)) {
+                byte blockId = voxelWorld.getBlock(pick.x, pick.y, pick.z);
                 Item heldItem = null;
                 if (player != null) {
                     Stacks selectedStack = player.getInventory().getSelectedItem();
@@ -264,10 +281,10 @@ public class WorldAppState extends BaseAppState {
                     }
                 }
 
-                boolean shouldBreak = breakingBlockSystem.hitBlock(cell.x, cell.y, cell.z, heldItem);
+                boolean shouldBreak = breakingBlockSystem.hitBlock(pick.x, pick.y, pick.z, heldItem);
 
                 if (shouldBreak) {
-                    if (voxelWorld.breakAt(cell.x, cell.y, cell.z)) {
+                    if (voxelWorld.breakAt(pick.x, pick.y, pick.z)) {
                         // Cria o item correspondente ao bloco
                         if (player != null && blockId != VoxelPalette.AIR_ID) {
                             PlaceableItem item = ItemRegistry.createItemFromBlock(blockId);
@@ -282,13 +299,10 @@ public class WorldAppState extends BaseAppState {
                                 System.out.println("Falha na criação do item para bloco ID: " + blockId);
                             }
                         }
-
-                        voxelWorld.rebuildDirtyChunks(physicsSpace);
-                        playerAppState.refreshPhysics();
                     }
 
                 }
-            });
+            }
         }
     }
 
@@ -298,14 +312,10 @@ public class WorldAppState extends BaseAppState {
      */
     public void setPlacedBlockInWorld() {
         if (input != null && input.isMouseCaptured() && input.consumePlaceRequested()) {
-            var pick = voxelWorld.pickFirstSolid(cam, 6f);
-            pick.ifPresent(hit -> {
-                VoxelWorld.Vector3i cell = hit.cell;
-                Vector3f normal = hit.normal;
-
-                int placeX = cell.x + (int)normal.x;
-                int placeY = cell.y + (int)normal.y;
-                int placeZ = cell.z + (int)normal.z;
+            if (voxelWorld.pickFirstSolid(cam, 6f, pick)) {
+                int placeX = pick.x + pick.normalX;
+                int placeY = pick.y + pick.normalY;
+                int placeZ = pick.z + pick.normalZ;
 
                 if (player != null) {
                     var selectedStack = player.getInventory().getSelectedItem();
@@ -333,26 +343,9 @@ public class WorldAppState extends BaseAppState {
 
                     player.getInventory().removeItem(item, 1);
                     System.out.println("Bloco '" + item.getName() + "' colocado!");
-
-                    voxelWorld.rebuildDirtyChunks(physicsSpace);
-                    playerAppState.refreshPhysics();
                 }
-            });
-
-        }
-    }
-
-    /**
-     * Atualiza o estado de todas as fornalhas ativas no mundo com base num timer de atualização constante.
-     * @param tpf Tempo desde o último frame.
-     */
-    public void setFurnaceUpdateTimer(float tpf) {
-        furnaceUpdateTimer += tpf;
-        if (furnaceUpdateTimer >= FURNACE_UPDATE_RATE) {
-            if (voxelWorld != null) {
-                voxelWorld.updateAllFurnaces(furnaceUpdateTimer, physicsSpace);
             }
-            furnaceUpdateTimer = 0.0f; // Reinicia o timer
+
         }
     }
 
@@ -362,8 +355,11 @@ public class WorldAppState extends BaseAppState {
      */
     private void spawnNPCs() {
 
-        int worldX = 320;
-        int worldZ = 320;
+        // NPCs aparecem na área já carregada em redor do spawn
+        int worldX = SPAWN_AREA_RADIUS * 2 * 16;
+        int worldZ = SPAWN_AREA_RADIUS * 2 * 16;
+        int originX = (int) spawnPosition.x - worldX / 2;
+        int originZ = (int) spawnPosition.z - worldZ / 2;
 
         int slimeCount = 8;
         int zombieCount = 5;
@@ -372,8 +368,8 @@ public class WorldAppState extends BaseAppState {
 
         for (int i = 0; i < slimeCount; i++) {
 
-            int x = (int) (Math.random() * worldX);
-            int z = (int) (Math.random() * worldZ);
+            int x = originX + (int) (Math.random() * worldX);
+            int z = originZ + (int) (Math.random() * worldZ);
 
             int rawY = voxelWorld.getTopSolidY(x, z);
 
@@ -381,7 +377,7 @@ public class WorldAppState extends BaseAppState {
 
             int y = rawY + 1;
 
-            Slime slime = new Slime("Slime" + i, new Vec3(x, y, z), voxelWorld, this.player);
+            Slime slime = new Slime("Slime" + i, new Vec3(x, y, z), voxelWorld, this.player, timers);
             npcList.add(slime);
 
             System.out.println("Spawn Slime: " + slime.getName() +
@@ -390,8 +386,8 @@ public class WorldAppState extends BaseAppState {
 
         for (int i = 0; i < zombieCount; i++) {
 
-            int x = (int) (Math.random() * worldX);
-            int z = (int) (Math.random() * worldZ);
+            int x = originX + (int) (Math.random() * worldX);
+            int z = originZ + (int) (Math.random() * worldZ);
 
             int rawY = voxelWorld.getTopSolidY(x, z);
 
@@ -399,31 +395,31 @@ public class WorldAppState extends BaseAppState {
 
             int y = rawY + 1;
 
-            Zombie zombie = new Zombie("Zombie" + i, new Vec3(x, y, z), voxelWorld, this.player);
+            Zombie zombie = new Zombie("Zombie" + i, new Vec3(x, y, z), voxelWorld, this.player, timers);
             npcList.add(zombie);
 
             System.out.println("Spawn Zombie: " + zombie.getName() +
                     " em X=" + x + " Y=" + y + " Z=" + z);
         }
         for (int i = 0; i < cowCount; i++) {
-            int x = (int) (Math.random() * worldX);
-            int z = (int) (Math.random() * worldZ);
+            int x = originX + (int) (Math.random() * worldX);
+            int z = originZ + (int) (Math.random() * worldZ);
             int rawY = voxelWorld.getTopSolidY(x, z);
             if (rawY < 0) continue;
             int y = rawY + 1;
 
-            Cow cow = new Cow("Cow" + i, new Vec3(x, y, z), voxelWorld, this.player);
+            Cow cow = new Cow("Cow" + i, new Vec3(x, y, z), voxelWorld, this.player, timers);
             npcList.add(cow);
             System.out.println("Spawn Cow: " + cow.getName() + " em X=" + x + " Y=" + y + " Z=" + z);
         }
         for (int i = 0; i < healerCount; i++) {
-            int x = (int) (Math.random() * worldX);
-            int z = (int) (Math.random() * worldZ);
+            int x = originX + (int) (Math.random() * worldX);
+            int z = originZ + (int) (Math.random() * worldZ);
             int rawY = voxelWorld.getTopSolidY(x, z);
             if (rawY < 0) continue;
             int y = rawY + 1;
 
-            Healer healer = new Healer("Healer" + i, new Vec3(x, y, z), voxelWorld, this.player);
+            Healer healer = new Healer("Healer" + i, new Vec3(x, y, z), voxelWorld, this.player, timers);
             npcList.add(healer);
             System.out.println("Spawn Healer: " + healer.getName() + " em X=" + x + " Y=" + y + " Z=" + z);
         }
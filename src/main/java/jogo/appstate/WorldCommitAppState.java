@@ -0,0 +1,53 @@
+package jogo.appstate;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.BaseAppState;
+
+import jogo.voxel.VoxelWorld;
+
+/**
+ * Último estado da frame: aplica de uma só vez todas as alterações feitas ao mundo pelos outros
+ * estados (quebrar e colocar blocos, gravidade, ticks, ferramentas). Os chunks sujos são
+ * reconstruídos em conjunto, com meshes e formas de colisão, em vez de cada sistema o fazer.
+ * Deve ser anexado depois de todos os estados que editam blocos.
+ */
+public class WorldCommitAppState extends BaseAppState {
+
+    private final WorldAppState worldAppState;
+
+    public WorldCommitAppState(WorldAppState worldAppState) {
+        this.worldAppState = worldAppState;
+    }
+
+    @Override
+    protected void initialize(Application app) {}
+
+    /**
+     * Faz o commit das alterações da frame: agenda os chunks sujos e troca as meshes e a colisão
+     * dos chunks que os workers já terminaram.
+     * @param tpf Tempo desde o último frame.
+     */
+    @Override
+    public void update(float tpf) {
+        VoxelWorld voxelWorld = worldAppState.getVoxelWorld();
+        if (voxelWorld == null) return;
+        voxelWorld.commitChanges(worldAppState.getPhysicsSpace());
+    }
+
+    /**
+     * Chunks cuja alteração ainda não está visível (ver {@link VoxelWorld#getRebuildBacklog()}).
+     */
+    public int getRebuildBacklog() {
+        VoxelWorld voxelWorld = worldAppState.getVoxelWorld();
+        return voxelWorld != null ? voxelWorld.getRebuildBacklog() : 0;
+    }
+
+    @Override
+    protected void cleanup(Application app) {}
+
+    @Override
+    protected void onEnable() {}
+
+    @Override
+    protected void onDisable() {}
+}
@@ -3,6 +3,8 @@ package jogo.gameobject.character;
 import jogo.framework.math.Vec3;
 import jogo.util.inventory.Inventory;
 import jogo.util.inventory.Stacks;
+import jogo.util.timers.GameTimer;
+import jogo.util.timers.TimerWheel;
 import java.util.LinkedList;
 import java.util.Queue;
 
@@ -24,15 +26,28 @@ public class Player extends Character {
     /** Nível atual de fome do jogador (0 a 100). */
     private int hunger = 100;
 
-    /** Temporizador acumulado para a redução passiva de fome. */
-    private float hungerTimer = 0.0f;
+    /** Relógio de jogo onde correm a fome e a inanição (ver {@link #setTimers(TimerWheel)}). */
+    private TimerWheel timers;
 
-    /** Temporizador para aplicação de dano por inanição quando a fome chega a zero. */
-    private float starvationTimer = 0.0f;
+    /** Temporizador da próxima redução passiva de fome. */
+    private GameTimer hungerTimer;
+
+    /** Temporizador periódico de dano por inanição, ativo enquanto a fome estiver a zero. */
+    private GameTimer starvationTimer;
+
+    /** Indica se o jogador está a correr, o que acelera a redução de fome. */
+    private boolean sprinting = false;
+
+    // Nomes com que os temporizadores de fome e inanição são guardados no save do jogador
+    private static final String HUNGER_TIMER = "player.hunger";
+    private static final String STARVATION_TIMER = "player.starvation";
 
     /** Tempo base (em segundos) para ocorrer uma redução no nível de fome. */
     private static final float BASE_DECAY_TIME = 120.0f;
 
+    /** Multiplicador da velocidade de redução de fome enquanto o jogador corre. */
+    private static final float SPRINT_DECAY_MULTIPLIER = 4.0f;
+
     /** Intervalo de tempo (em segundos) entre cada penalização de vida por fome zero. */
     private static final float STARVATION_DAMAGE_TIME = 2.0f;
 
@@ -102,44 +117,69 @@ public class Player extends Character {
      */
     public void setHunger(int hunger) {
         this.hunger = Math.max(0, Math.min(100, hunger));
+        updateStarvation();
     }
 
     /**
-     * Atualiza a lógica de fome com base no tempo decorrido.
-     * Reduz a fome periodicamente (mais rápido ao correr) e aplica dano se o nível chegar a zero.
-     * @param tpf Tempo por frame (Time Per Frame).
-     * @param isSprinting Indica se o jogador está a correr para acelerar o consumo de energia.
+     * Liga a fome e a inanição ao relógio de jogo: a fome desce periodicamente (mais rápido ao
+     * correr) e, com a fome a zero, o jogador sofre dano a intervalos regulares.
+     * @param timers O relógio de jogo central.
      */
-    public void updateHunger(float tpf, boolean isSprinting) {
-        float decayMultiplier = isSprinting ? 4.0f : 1.0f;
-        hungerTimer += tpf * decayMultiplier;
-
-        if (hungerTimer >= BASE_DECAY_TIME) {
-            int decayAmount = 2;
-            setHunger(hunger - decayAmount);
-            hungerTimer = 0.0f;
-        }
+    public void setTimers(TimerWheel timers) {
+        this.timers = timers;
+        scheduleHunger(BASE_DECAY_TIME / decayMultiplier());
+        updateStarvation();
+    }
 
-        if (hunger <= 0) {
-            starvationTimer += tpf;
-            if (starvationTimer >= STARVATION_DAMAGE_TIME) {
-                takeDamage(5);
-                starvationTimer = 0.0f;
-            }
-        } else {
-            starvationTimer = 0.0f;
-        }
+    /**
+     * Indica se o jogador está a correr. Ao mudar, a próxima redução de fome é reagendada para o
+     * novo ritmo, mantendo a parte do intervalo que já passou.
+     * @param sprinting true enquanto o jogador corre.
+     */
+    public void setSprinting(boolean sprinting) {
+        if (sprinting == this.sprinting) return;
+        float remaining = hungerTimer != null && hungerTimer.isPending()
+                ? hungerTimer.getRemaining() * decayMultiplier() : BASE_DECAY_TIME;
+        this.sprinting = sprinting;
+        if (timers != null) scheduleHunger(remaining / decayMultiplier());
     }
 
     /**
      * Restaura as estatísticas vitais do jogador para os valores iniciais.
-     * Define vida e fome a 100 e limpa os temporizadores.
+     * Define vida e fome a 100 e reinicia a contagem da fome.
      */
     public void resetStats() {
         setHealth(100);
         setHunger(100);
-        this.hungerTimer = 0.0f;
-        this.starvationTimer = 0.0f;
+        if (timers != null) scheduleHunger(BASE_DECAY_TIME / decayMultiplier());
+    }
+
+    private float decayMultiplier() {
+        return sprinting ? SPRINT_DECAY_MULTIPLIER : 1.0f;
+    }
+
+    // Substitui a redução de fome pendente (o nome é único no relógio)
+    private void scheduleHunger(float delay) {
+        hungerTimer = timers.schedule(HUNGER_TIMER, delay, this::decayHunger);
+    }
+
+    private void decayHunger() {
+        int decayAmount = 2;
+        setHunger(hunger - decayAmount);
+        scheduleHunger(BASE_DECAY_TIME / decayMultiplier());
+    }
+
+    // Liga o dano por inanição quando a fome chega a zero e desliga-o quando o jogador come
+    private void updateStarvation() {
+        if (timers == null) return;
+        if (hunger <= 0) {
+            if (starvationTimer == null || !starvationTimer.isPending()) {
+                starvationTimer = timers.scheduleRepeating(STARVATION_TIMER, STARVATION_DAMAGE_TIME, () -> takeDamage(5));
+            }
+        } else if (starvationTimer != null) {
+            starvationTimer.cancel();
+            starvationTimer = null;
+        }
     }
 
     /**
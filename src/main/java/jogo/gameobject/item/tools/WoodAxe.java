@@ -5,11 +5,10 @@ import com.jme3.renderer.Camera;
 import com.jme3.texture.Texture;
 import jogo.appstate.WorldAppState;
 import jogo.gameobject.item.Tool;
-import jogo.util.Hit;
+import jogo.voxel.RayHit;
 import jogo.voxel.VoxelBlockType;
 import jogo.voxel.VoxelPalette;
 import jogo.voxel.VoxelWorld;
-import java.util.Optional;
 
 /**
  * Representa um Machado de Madeira (Wood Axe).
@@ -24,6 +23,9 @@ public class WoodAxe extends Tool {
     /** Referência à câmara do jogador para calcular a direção da interação (raycasting). */
     public Camera camera;
 
+    /** Resultado do raycast da interação, reutilizado entre chamadas. */
+    private final RayHit pick = new RayHit();
+
     /**
      * Construtor da classe WoodAxe.
      * Inicializa a ferramenta com o nome "Wood Axe".
@@ -84,25 +86,19 @@ public class WoodAxe extends Tool {
 
         VoxelWorld vw = worldAppState.getVoxelWorld();
         // Usa um alcance de 6f
-        Optional<Hit> pick = vw.pickFirstSolid(camera, 6f);
-
-        pick.ifPresent(hit -> {
-            VoxelWorld.Vector3i cell = hit.cell;
-            byte blockId = vw.getBlock(cell.x, cell.y, cell.z);
-
-            if (blockId == VoxelPalette.WOOD_ID) {
-                // Transforma Wood Block em Plank Block
-                vw.setBlock(cell.x, cell.y, cell.z, VoxelPalette.PLANK_ID);
+        if (!vw.pickFirstSolid(camera, 6f, pick)) {
+            System.out.println("Nenhum bloco sólido encontrado no alcance para interagir.");
+            return;
+        }
 
-                // Reconstroi o chunk e a física
-                worldAppState.getVoxelWorld().rebuildDirtyChunks(worldAppState.getPhysicsSpace());
+        byte blockId = vw.getBlock(pick.x, pick.y, pick.z);
 
-                System.out.println("Wood Block transformado em Plank Block em: " + cell.x + "," + cell.y + "," + cell.z);
-            }
-        });
+        if (blockId == VoxelPalette.WOOD_ID) {
+            // Transforma Wood Block em Plank Block
+            // O chunk e a física são reconstruídos no commit do fim da frame
+            vw.setBlock(pick.x, pick.y, pick.z, VoxelPalette.PLANK_ID);
 
-        if (pick.isEmpty()) {
-            System.out.println("Nenhum bloco sólido encontrado no alcance para interagir.");
+            System.out.println("Wood Block transformado em Plank Block em: " + pick.x + "," + pick.y + "," + pick.z);
         }
     }
 }
\ No newline at end of file
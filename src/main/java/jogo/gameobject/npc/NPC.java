@@ -6,6 +6,10 @@ import jogo.gameobject.character.Character;
 import jogo.framework.math.Vec3;
 import jogo.gameobject.item.Item;
 import jogo.gameobject.item.Tool;
+import jogo.util.timers.GameTimer;
+import jogo.util.timers.TimerWheel;
+
+import java.util.Objects;
 
 public abstract class NPC extends Character {
     public NPCAppState appStateHook;
@@ -13,13 +17,27 @@ public abstract class NPC extends Character {
     protected float verticalVelocity = 0;
     protected static final float GRAVITY = 24.0f;
 
-    public NPC(String name) {
+    // Relógio de jogo onde correm os cooldowns (ataque, salto, vaguear)
+    protected final TimerWheel timers;
+
+    public NPC(String name, TimerWheel timers) {
         super(name);
+        this.timers = Objects.requireNonNull(timers, "timers");
     }
 
     // Atualização de IA
     public abstract void updateAI(float tpf);
 
+    // Inicia um cooldown que termina daqui a seconds segundos de jogo (um temporizador sem ação)
+    protected GameTimer startCooldown(float seconds) {
+        return timers.schedule(seconds, null);
+    }
+
+    // Um cooldown ainda a contar; null conta como terminado
+    protected static boolean isCoolingDown(GameTimer cooldown) {
+        return cooldown != null && cooldown.isPending();
+    }
+
     // Move logicamente o NPC
     public void move(float dx, float dy, float dz) {
         this.position.x += dx;
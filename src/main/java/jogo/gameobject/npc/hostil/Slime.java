@@ -3,6 +3,8 @@ package jogo.gameobject.npc.hostil;
 import jogo.framework.math.Vec3;
 import jogo.gameobject.character.Player;
 import jogo.gameobject.npc.NPC;
+import jogo.util.timers.GameTimer;
+import jogo.util.timers.TimerWheel;
 import jogo.voxel.VoxelWorld;
 
 public class Slime extends NPC {
@@ -28,8 +30,11 @@ public class Slime extends NPC {
     /** Força aplicada no momento do salto. */
     private static final float JUMP_POWER = 8.0f;
 
-    /** Temporizador para controlar o intervalo entre saltos. */
-    private float jumpTimer = 0.0f;
+    /** Cooldown entre saltos, no relógio de jogo; recomeça quando o Slime aterra. */
+    private GameTimer jumpCooldown;
+
+    /** Indica se o Slime esteve no ar desde a última vez que tocou no chão. */
+    private boolean airborne = false;
 
     /** Intervalo de tempo (em segundos) entre cada salto. */
     private static final float JUMP_INTERVAL = 1.0f;
@@ -40,8 +45,8 @@ public class Slime extends NPC {
     /** Tempo de espera entre ataques consecutivos. */
     private static final float ATTACK_COOLDOWN = 1.5f;
 
-    /** Temporizador interno para gerir o cooldown do ataque. */
-    public float attackCooldownTimer = 0.0f;
+    /** Cooldown entre ataques, no relógio de jogo. */
+    private GameTimer attackCooldown;
 
     /** Quantidade de dano infligida ao jogador por cada ataque. */
     private final int ATTACK_DAMAGE = 5;
@@ -58,9 +63,10 @@ public class Slime extends NPC {
      * @param spawnPos Posição inicial onde o Slime será criado.
      * @param world O mundo de voxels onde o Slime habita.
      * @param player O jogador que o Slime irá perseguir.
+     * @param timers Relógio de jogo onde correm os cooldowns.
      */
-    public Slime(String name, Vec3 spawnPos, VoxelWorld world, Player player) {
-        super(name);
+    public Slime(String name, Vec3 spawnPos, VoxelWorld world, Player player, TimerWheel timers) {
+        super(name, timers);
         this.position = new Vec3(spawnPos.x, spawnPos.y, spawnPos.z);
         this.world = world;
         this.player = player;
@@ -86,9 +92,6 @@ public class Slime extends NPC {
 
         if (targetPos == null) return;
 
-        jumpTimer -= tpf;
-        attackCooldownTimer -= tpf;
-
         //Distância entre nós e o NPC
         float dx = targetPos.x - position.x;
         float dz = targetPos.z - position.z;
@@ -97,11 +100,11 @@ public class Slime extends NPC {
         float dist = (float)Math.sqrt(distSq);
 
         // Lógica de ataque
-        if (dist < ATTACK_RANGE && attackCooldownTimer <= 0) {
+        if (dist < ATTACK_RANGE && !isCoolingDown(attackCooldown)) {
             player.takeDamage(ATTACK_DAMAGE);
             System.out.println(this.getName() + " ATAQUE ATIVADO! DIST: " + dist +
                     " | Player sofreu " + ATTACK_DAMAGE + " de dano. Vida atual: " + player.getHealth());
-            attackCooldownTimer = ATTACK_COOLDOWN;
+            attackCooldown = startCooldown(ATTACK_COOLDOWN);
             return; // Pára o movimento e AI para atacar.
         }
 
@@ -127,15 +130,15 @@ public class Slime extends NPC {
             // Tenta mover-se para X, se colidir, tenta saltar
             if (!world.isSolid((int)Math.floor(newX), currentY, (int)Math.floor(position.z))) {
                 position.x = newX;
-            } else if (verticalVelocity == 0 && jumpTimer <= 0) {
-                jumpTimer = JUMP_INTERVAL;
+            } else if (verticalVelocity == 0 && !isCoolingDown(jumpCooldown)) {
+                jumpCooldown = startCooldown(JUMP_INTERVAL);
             }
 
             // Tenta mover-se para Z, se colidir, tenta saltar
             if (!world.isSolid((int)Math.floor(position.x), currentY, (int)Math.floor(newZ))) {
                 position.z = newZ;
-            } else if (verticalVelocity == 0 && jumpTimer <= 0) {
-                jumpTimer = JUMP_INTERVAL;
+            } else if (verticalVelocity == 0 && !isCoolingDown(jumpCooldown)) {
+                jumpCooldown = startCooldown(JUMP_INTERVAL);
             }
         }
 
@@ -154,14 +157,17 @@ public class Slime extends NPC {
             position.y = blockY + 1.0f;
             verticalVelocity = 0;
 
-            if (jumpTimer <= 0) {
+            if (airborne) { // acabou de aterrar: só volta a saltar depois de JUMP_INTERVAL no chão
+                airborne = false;
+                jumpCooldown = startCooldown(JUMP_INTERVAL);
+            } else if (!isCoolingDown(jumpCooldown)) {
                 verticalVelocity = JUMP_POWER;
-                jumpTimer = JUMP_INTERVAL;
+                jumpCooldown = startCooldown(JUMP_INTERVAL);
             }
 
         } else {
             position.y = newY;
-            if (!onGround) jumpTimer = JUMP_INTERVAL;
+            if (!onGround) airborne = true;
         }
 
         // Ajuste final para evitar entalar-se
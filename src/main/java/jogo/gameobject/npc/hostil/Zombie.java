@@ -2,6 +2,8 @@ package jogo.gameobject.npc.hostil;
 
 import jogo.framework.math.Vec3;
 import jogo.gameobject.npc.NPC;
+import jogo.util.timers.GameTimer;
+import jogo.util.timers.TimerWheel;
 import jogo.voxel.VoxelWorld;
 import jogo.gameobject.character.Player; // Se precisar de player para o takeDamage
 
@@ -34,8 +36,8 @@ public class Zombie extends NPC {
     /** Tempo de espera (em segundos) entre ataques. */
     private static final float ATTACK_COOLDOWN = 2.0f;
 
-    /** Temporizador para controlar o intervalo entre ataques. */
-    private float attackCooldownTimer = 0.0f;
+    /** Cooldown entre ataques, no relógio de jogo. */
+    private GameTimer attackCooldown;
 
     /** Quantidade de dano infligida ao jogador por cada ataque bem-sucedido. */
     private final int ATTACK_DAMAGE = 8;
@@ -50,9 +52,10 @@ public class Zombie extends NPC {
      * @param spawnPos Posição onde o Zombie será instanciado.
      * @param world Referência ao mundo de jogo.
      * @param player Referência ao jogador alvo.
+     * @param timers Relógio de jogo onde correm os cooldowns.
      */
-    public Zombie(String name, Vec3 spawnPos, VoxelWorld world, Player player) {
-        super(name);
+    public Zombie(String name, Vec3 spawnPos, VoxelWorld world, Player player, TimerWheel timers) {
+        super(name, timers);
         this.position = new Vec3(spawnPos.x, spawnPos.y, spawnPos.z);
         this.world = world;
         this.player = player;
@@ -76,19 +79,17 @@ public class Zombie extends NPC {
     public void updateAI(float tpf) {
         if (targetPos == null) return;
 
-        attackCooldownTimer -= tpf;
-
         float dx = targetPos.x - position.x;
         float dz = targetPos.z - position.z;
         float distSq = dx * dx + dz * dz;
         float dist = (float)Math.sqrt(distSq);
 
         // Lógica de ataque: Ataca se estiver no alcance e o cooldown tiver terminado.
-        if (dist < ATTACK_RANGE && attackCooldownTimer <= 0) {
+        if (dist < ATTACK_RANGE && !isCoolingDown(attackCooldown)) {
             player.takeDamage(ATTACK_DAMAGE);
             System.out.println(this.getName() + " ATAQUE ATIVADO! DIST: " + dist +
                     " | Player sofreu " + ATTACK_DAMAGE + " de dano. Vida atual: " + player.getHealth());
-            attackCooldownTimer = ATTACK_COOLDOWN;
+            attackCooldown = startCooldown(ATTACK_COOLDOWN);
             return;
         }
 
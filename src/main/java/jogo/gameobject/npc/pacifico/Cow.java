@@ -2,6 +2,8 @@ package jogo.gameobject.npc.pacifico;
 
 import jogo.framework.math.Vec3;
 import jogo.gameobject.npc.NPC;
+import jogo.util.timers.GameTimer;
+import jogo.util.timers.TimerWheel;
 import jogo.voxel.VoxelWorld;
 import jogo.gameobject.character.Player;
 
@@ -19,8 +21,8 @@ public class Cow extends NPC {
     /** Velocidade de movimento da vaca ao vaguear. */
     private float speed = 0.8f;
 
-    /** Temporizador para controlar a frequência de mudança de direção ao vaguear. */
-    private float wanderTimer = 0;
+    /** Cooldown até à próxima mudança de direção ao vaguear, no relógio de jogo. */
+    private GameTimer wanderCooldown;
 
     /** Intervalo base entre as mudanças de alvo de movimento. */
     private static final float WANDER_INTERVAL = 5.0f;
@@ -38,9 +40,10 @@ public class Cow extends NPC {
      * @param spawnPos Posição inicial no mundo.
      * @param world Referência ao sistema de voxels.
      * @param player Referência ao jogador.
+     * @param timers Relógio de jogo onde correm os cooldowns.
      */
-    public Cow(String name, Vec3 spawnPos, VoxelWorld world, Player player) {
-        super(name);
+    public Cow(String name, Vec3 spawnPos, VoxelWorld world, Player player, TimerWheel timers) {
+        super(name, timers);
         this.position = new Vec3(spawnPos.x, spawnPos.y, spawnPos.z);
         this.world = world;
         this.player = player;
@@ -63,16 +66,14 @@ public class Cow extends NPC {
 
         if (targetPos == null) return;
 
-        wanderTimer -= tpf;
-
         // Lógica de Vaguear
-        if (wanderTimer <= 0) {
+        if (!isCoolingDown(wanderCooldown)) {
             float angle = (float) Math.random() * 360;
             float targetX = position.x + (float) Math.cos(angle) * WANDER_DISTANCE;
             float targetZ = position.z + (float) Math.sin(angle) * WANDER_DISTANCE;
 
             this.wanderTarget = new Vec3(targetX, position.y, targetZ);
-            wanderTimer = WANDER_INTERVAL + (float) Math.random() * 2.0f;
+            wanderCooldown = startCooldown(WANDER_INTERVAL + (float) Math.random() * 2.0f);
         }
 
         // Perseguir o wanderTarget com Colisão
@@ -2,6 +2,8 @@ package jogo.gameobject.npc.pacifico;
 
 import jogo.framework.math.Vec3;
 import jogo.gameobject.npc.NPC;
+import jogo.util.timers.GameTimer;
+import jogo.util.timers.TimerWheel;
 import jogo.voxel.VoxelWorld;
 import jogo.gameobject.character.Player;
 
@@ -22,8 +24,11 @@ public class Healer extends NPC {
     /** Velocidade acelerada utilizada quando o Healer corre para ajudar o jogador. */
     private float followSpeed = 2.5f;
 
-    /** Temporizador para controlar a mudança de direção no modo de vaguear. */
-    private float wanderTimer = 0;
+    /** Cooldown até à próxima mudança de direção no modo de vaguear, no relógio de jogo. */
+    private GameTimer wanderCooldown;
+
+    /** Indica se o Healer estava a seguir o jogador na última atualização. */
+    private boolean wasFollowing = false;
 
     /** Intervalo de tempo entre as mudanças de alvo no modo de vaguear. */
     private static final float WANDER_INTERVAL = 8.0f;
@@ -49,8 +54,8 @@ public class Healer extends NPC {
     /** Tempo de espera (em segundos) entre cada ação de cura. */
     private static final float HEAL_COOLDOWN = 3.0f;
 
-    /** Temporizador interno para gerir o cooldown da habilidade de cura. */
-    private float healCooldownTimer = 0;
+    /** Cooldown da habilidade de cura, no relógio de jogo. */
+    private GameTimer healCooldown;
 
     /**
      * Construtor da classe Healer.
@@ -59,9 +64,10 @@ public class Healer extends NPC {
      * @param spawnPos Posição inicial no mundo.
      * @param world Referência ao sistema de voxels.
      * @param player Referência ao jogador alvo.
+     * @param timers Relógio de jogo onde correm os cooldowns.
      */
-    public Healer(String name, Vec3 spawnPos, VoxelWorld world, Player player) {
-        super(name);
+    public Healer(String name, Vec3 spawnPos, VoxelWorld world, Player player, TimerWheel timers) {
+        super(name, timers);
         this.position = new Vec3(spawnPos.x, spawnPos.y, spawnPos.z);
         this.world = world;
         this.player = player;
@@ -84,9 +90,6 @@ public class Healer extends NPC {
 
         if (targetPos == null) return;
 
-        healCooldownTimer -= tpf;
-        wanderTimer -= tpf;
-
         // cálculos condicionais
         float dist = this.position.distance(targetPos);
         float currentHealth = player.getHealth();
@@ -99,14 +102,14 @@ public class Healer extends NPC {
         boolean isInFollowRange = dist < HEAL_FOLLOW_RANGE;
 
         // Lógica de Cura (Só cura se estiver no raio E for necessário)
-        if (healCooldownTimer <= 0) {
+        if (!isCoolingDown(healCooldown)) {
 
             // O jogador precisa de cura E está dentro do raio
             if (!playerNeedsHealAndIsFar && dist < HEAL_RANGE && maxHealth > 0 && currentHealth / maxHealth <= LOW_HEALTH_PERCENT) {
 
                 player.heal(HEAL_AMOUNT);
                 System.out.println("Healer curou o jogador em " + HEAL_AMOUNT + " HP. Vida atual: " + player.getHealth());
-                healCooldownTimer = HEAL_COOLDOWN;
+                healCooldown = startCooldown(HEAL_COOLDOWN);
             }
         }
 
@@ -121,17 +124,22 @@ public class Healer extends NPC {
             moveTarget = targetPos;
             currentSpeed = followSpeed;
             isFollowing = true;
-            wanderTimer = WANDER_INTERVAL; // Congela o timer de vaguear para não interromper a perseguição
         }
+        // Ao deixar de seguir, o vaguear só recomeça passado WANDER_INTERVAL (o timer fica congelado durante a perseguição)
+        else if (wasFollowing) {
+            wanderCooldown = startCooldown(WANDER_INTERVAL);
+        }
+        wasFollowing = isFollowing;
+
         // Se não estiver a seguir (não precisa de cura ou está longe demais), vagueia
-        else if (wanderTimer <= 0 || this.position.distance(wanderTarget) < 0.6f) {
+        if (!isFollowing && (!isCoolingDown(wanderCooldown) || this.position.distance(wanderTarget) < 0.6f)) {
             // CONDIÇÃO: Vaguear (Wander)
             float angle = (float) Math.random() * 360;
             float targetX = position.x + (float) Math.cos(angle) * WANDER_DISTANCE;
             float targetZ = position.z + (float) Math.sin(angle) * WANDER_DISTANCE;
 
             this.wanderTarget = new Vec3(targetX, position.y, targetZ);
-            wanderTimer = WANDER_INTERVAL + (float) Math.random() * 2.0f;
+            wanderCooldown = startCooldown(WANDER_INTERVAL + (float) Math.random() * 2.0f);
             moveTarget = this.wanderTarget;
         }
 
@@ -1,9 +1,11 @@
 package jogo.util.breakingblocks;
 
+import jogo.util.timers.GameTimer;
+
 /**
  * Gere o progresso de destruição de um bloco específico no mundo.
- * Esta classe armazena a dureza máxima do bloco, o dano acumulado e controla
- * o tempo decorrido desde o último impacto para permitir o reset do progresso.
+ * Esta classe armazena a dureza máxima do bloco, o dano acumulado e o temporizador
+ * que reinicia o progresso se o bloco deixar de ser atingido.
  */
 public class BreakBlockProgress {
 
@@ -16,8 +18,8 @@ public class BreakBlockProgress {
     /** Quantidade de dano acumulada no bloco até ao momento. */
     private float currentDamage = 0.0f;
 
-    /** Temporizador que contabiliza o tempo passado desde a última vez que o bloco foi atingido. */
-    private float timeSinceLastHit = 0f;
+    /** Temporizador que reinicia o progresso RESET_TIME segundos depois do último impacto. */
+    private GameTimer resetTimer;
 
     /**
      * Construtor da classe BreakBlockProgress.
@@ -28,27 +30,22 @@ public class BreakBlockProgress {
     }
 
     /**
-     * Adiciona uma quantidade de dano ao progresso atual e reinicia o temporizador de inatividade.
+     * Adiciona uma quantidade de dano ao progresso atual.
      * @param damage Quantidade de dano a aplicar ao bloco.
      * @return true se o dano acumulado for igual ou superior à dureza máxima (bloco destruído); false caso contrário.
      */
     public boolean addDamage(float damage) {
         currentDamage += damage;
-        timeSinceLastHit = 0f;
         return currentDamage >= maxHardness;
     }
 
     /**
-     * Atualiza o temporizador de inatividade com base no tempo decorrido entre frames.
-     * @param tpf Tempo por frame (Time Per Frame).
-     * @return true se o tempo desde o último hit exceder o RESET_TIME, indicando que o progresso deve ser limpo; false caso contrário.
+     * Substitui o temporizador de inatividade (agendado a cada impacto), cancelando o anterior.
+     * @param resetTimer Novo temporizador, ou null para só cancelar o atual.
      */
-    public boolean update(float tpf) {
-        timeSinceLastHit += tpf;
-        if (timeSinceLastHit >= RESET_TIME) {
-            return true;
-        }
-        return false;
+    public void setResetTimer(GameTimer resetTimer) {
+        if (this.resetTimer != null) this.resetTimer.cancel();
+        this.resetTimer = resetTimer;
     }
 
     /**
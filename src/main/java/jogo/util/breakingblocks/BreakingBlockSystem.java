@@ -2,31 +2,38 @@ package jogo.util.breakingblocks;
 
 import jogo.gameobject.item.Item;
 import jogo.gameobject.item.Tool;
+import jogo.util.timers.TimerWheel;
+import jogo.voxel.BlockPos;
+import jogo.voxel.LongObjectMap;
 import jogo.voxel.VoxelWorld;
 import jogo.voxel.VoxelBlockType;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Iterator;
 
 /**
  * Sistema responsável por gerir a destruição progressiva de blocos no mundo.
  * Controla o dano acumulado em cada bloco, aplica multiplicadores de mineração baseados
- * no item segurado e remove blocos do mundo quando a sua resistência chega a zero.
+ * no item segurado e remove blocos do mundo quando a sua resistência chega a zero. O progresso
+ * de um bloco que deixa de ser atingido é esquecido por um temporizador próprio, por isso não há
+ * nada a atualizar a cada frame.
  */
 public class BreakingBlockSystem {
 
     /** Referência ao mundo de voxels para aceder aos dados dos blocos. */
     private final VoxelWorld world;
 
-    /** Mapa que armazena o progresso de quebra de cada bloco, usando as coordenadas "x,y,z" como chave. */
-    private final Map<String, BreakBlockProgress> breakingBlocks = new HashMap<>();
+    /** Mapa que armazena o progresso de quebra de cada bloco, usando as coordenadas empacotadas ({@link BlockPos}) como chave. */
+    private final LongObjectMap<BreakBlockProgress> breakingBlocks = new LongObjectMap<>();
+
+    /** Relógio de jogo onde são agendados os resets por inatividade. */
+    private final TimerWheel timers;
 
     /**
      * Construtor do sistema de quebra de blocos.
      * @param world O mundo de voxels onde os blocos serão manipulados.
+     * @param timers Relógio de jogo para os resets por inatividade.
      */
-    public BreakingBlockSystem(VoxelWorld world) {
+    public BreakingBlockSystem(VoxelWorld world, TimerWheel timers) {
         this.world = world;
+        this.timers = timers;
     }
 
     /**
@@ -39,7 +46,7 @@ public class BreakingBlockSystem {
      * @return true se o bloco foi completamente destruído após este impacto; false caso contrário.
      */
     public boolean hitBlock(int x, int y, int z, Item heldItem) {
-        String key = x + "," + y + "," + z;
+        long key = BlockPos.pack(x, y, z);
         VoxelBlockType blockType = world.getPalette().get(world.getBlock(x, y, z));
 
         // Apenas blocos sólidos podem sofrer danos de quebra.
@@ -59,7 +66,7 @@ public class BreakingBlockSystem {
 
         // Se o dano de um único clique for superior à dureza, quebra imediatamente.
         if (damage >= hardness) {
-            breakingBlocks.remove(key);
+            forget(key);
             return true;
         }
 
@@ -71,6 +78,8 @@ public class BreakingBlockSystem {
         }
 
         boolean shouldBreak = progress.addDamage(damage);
+        // Cada impacto adia o reset por inatividade
+        progress.setResetTimer(timers.schedule(BreakBlockProgress.RESET_TIME, () -> resetProgress(key)));
 
         // Log de depuração do progresso de quebra.
         System.out.println("Hit no bloco '" + blockType.getName() +
@@ -80,7 +89,7 @@ public class BreakingBlockSystem {
                 " / " + String.format("%.2f", progress.getMaxHardness()));
 
         if (shouldBreak) {
-            breakingBlocks.remove(key);
+            forget(key);
             return true;
         } else {
             return false;
@@ -88,27 +97,19 @@ public class BreakingBlockSystem {
     }
 
     /**
-     * Atualiza o estado de todos os blocos em processo de quebra.
-     * Verifica se algum bloco excedeu o tempo limite (timeout) sem receber novos impactos.
-     * * @param tpf Tempo por frame (Time Per Frame).
-     * @return true se pelo menos um bloco teve o seu progresso reiniciado (reset) nesta atualização.
+     * Esquece o progresso de um bloco que não foi atingido durante RESET_TIME segundos.
+     * @param key Coordenadas empacotadas do bloco.
      */
-    public boolean update(float tpf) {
-        Iterator<Map.Entry<String, BreakBlockProgress>> it = breakingBlocks.entrySet().iterator();
-        boolean reset = false;
-
-        while (it.hasNext()) {
-            Map.Entry<String, BreakBlockProgress> entry = it.next();
-            BreakBlockProgress progress = entry.getValue();
-
-            // Se o progresso expirou por inatividade, remove o bloco do mapa de quebra.
-            if (progress.update(tpf)) {
-                System.out.println("Progresso de quebra resetado (timeout)");
-                it.remove();
-                reset = true;
-            }
+    private void resetProgress(long key) {
+        if (breakingBlocks.remove(key) != null) {
+            System.out.println("Progresso de quebra resetado (timeout)");
         }
-        return reset;
+    }
+
+    // Remove o progresso de um bloco e cancela o reset pendente
+    private void forget(long key) {
+        BreakBlockProgress progress = breakingBlocks.remove(key);
+        if (progress != null) progress.setResetTimer(null);
     }
 
     /**
@@ -116,6 +117,7 @@ public class BreakingBlockSystem {
      * Utilizado para reiniciar o estado do sistema (ex: ao mudar de mundo ou nível).
      */
     public void cleanup() {
+        for (BreakBlockProgress progress : breakingBlocks.values()) progress.setResetTimer(null);
         breakingBlocks.clear();
     }
 }
\ No newline at end of file
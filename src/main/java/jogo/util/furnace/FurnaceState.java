@@ -2,13 +2,21 @@ package jogo.util.furnace;
 
 import jogo.gameobject.item.Item;
 import jogo.util.inventory.Stacks;
+import jogo.voxel.BlockEntity;
+import jogo.voxel.VoxelWorld;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 /**
  * Representa o estado interno e a lógica de processamento de uma fornalha específica.
  * Controla os slots de entrada, combustível e saída, bem como o progresso da fundição
- * e o consumo de energia calorífica.
+ * e o consumo de energia calorífica. É o block entity do bloco de fornalha: vive no chunk
+ * da fornalha e não é atualizado a cada tick; guarda o tick do mundo até onde foi calculado e
+ * alcança-o de uma vez quando é observado (aberto no HUD, esvaziado por outro bloco ou guardado).
  */
-public class FurnaceState {
+public class FurnaceState extends BlockEntity {
     /** Slot que contém o item a ser processado. */
     public Stacks inputStack = null;
 
@@ -18,25 +26,40 @@ public class FurnaceState {
     /** Slot que contém o resultado final do processamento. */
     public Stacks outputStack = null;
 
-    /** Progresso atual da fundição (de 0.0f até MELT_TIME_TOTAL). */
-    public float meltProgress = 0.0f;
-
-    /** Quantidade de energia de combustível restante na câmara de combustão. */
-    public float fuelLeft = 0.0f;
-
     /** Tempo total (em segundos) necessário para processar um item. */
     public static final float MELT_TIME_TOTAL = 8.0f;
 
     /** Duração de cada fase visual da fundição (utilizado para animações ou ícones). */
     public static final float PHASE_DURATION = 2.0f;
 
+    // The furnace runs in world ticks (VoxelWorld.TICK_SECONDS); a fuel item lasts efficiency melts
+    private static final int MELT_TICKS = Math.round(MELT_TIME_TOTAL / VoxelWorld.TICK_SECONDS);
+    private static final int PHASE_TICKS = Math.round(PHASE_DURATION / VoxelWorld.TICK_SECONDS);
+
+    // Progress of the current melt and burn time left in the chamber, in ticks
+    private int meltTicks;
+    private int fuelTicks;
+
+    // World tick the state was computed for; -1 until first observed
+    private long syncedTick = -1;
+
     /**
      * Calcula a fase atual do progresso de fundição (0 a 4).
      * @return O índice da fase baseado no progresso atual.
      */
     public int getPhase() {
-        if (inputStack == null || fuelLeft <= 0.0f) return 0;
-        return (int) (meltProgress / PHASE_DURATION);
+        if (inputStack == null || fuelTicks <= 0) return 0;
+        return meltTicks / PHASE_TICKS;
+    }
+
+    /** Progresso atual da fundição, em segundos (de 0 até MELT_TIME_TOTAL). */
+    public float getMeltProgress() {
+        return meltTicks * VoxelWorld.TICK_SECONDS;
+    }
+
+    /** Energia de combustível restante na câmara de combustão, em itens fundidos. */
+    public float getFuelLeft() {
+        return (float) fuelTicks / MELT_TICKS;
     }
 
     /**
@@ -46,10 +69,11 @@ public class FurnaceState {
      * @return true se o item foi aceite; false caso contrário.
      */
     public boolean setInput(Item item) {
+        sync();
         if (inputStack == null) {
             if (FurnaceRegistry.findRecipe(item) != null) {
                 inputStack = new Stacks(item, 1);
-                meltProgress = 0.0f;
+                meltTicks = 0;
                 return true;
             }
         }
@@ -62,6 +86,7 @@ public class FurnaceState {
      * @return true se o item for um combustível válido e o slot estiver livre; false caso contrário.
      */
     public boolean setFuel(Item item) {
+        sync();
         if (fuelStack == null && FurnaceRegistry.getFuelEfficiency(item) > 0.0f) {
             fuelStack = new Stacks(item, 1);
             return true;
@@ -70,57 +95,135 @@ public class FurnaceState {
     }
 
     /**
-     * Executa a lógica de atualização da fornalha.
-     * Consome combustível, avança o progresso da fundição e gera o item de saída
-     * quando o processo termina, desde que o slot de saída esteja disponível.
-     * @param tpf Tempo por frame (Time Per Frame).
+     * A fornalha não precisa de ser atualizada a cada tick: o estado é calculado de uma vez quando
+     * é observada (ver {@link #catchUp(long)}). Só acerta o relógio depois de uma alteração.
+     * @return false, sai logo do conjunto ativo.
+     */
+    @Override
+    public boolean tick(float tpf) {
+        sync();
+        return false;
+    }
+
+    /**
+     * Avança a fornalha até ao tick indicado, com o mesmo resultado que atualizá-la tick a tick:
+     * o combustível gasto, as fundições terminadas e a pilha de saída são calculados numa só conta,
+     * incluindo ficar sem combustível a meio de uma fundição ou com a saída cheia.
+     * @param tick Tick atual do mundo.
+     */
+    @Override
+    protected void catchUp(long tick) {
+        if (syncedTick >= 0 && tick > syncedTick) advance(tick - syncedTick);
+        if (tick > syncedTick) syncedTick = tick;
+    }
+
+    @Override
+    public void write(DataOutputStream out) throws IOException {
+        writeLegacy(out);
+        out.writeLong(syncedTick);
+    }
+
+    @Override
+    public void read(DataInputStream in) throws IOException {
+        readLegacy(in);
+        // Furnaces saved before the world clock have no tick and run from their first observation
+        syncedTick = in.available() >= Long.BYTES ? in.readLong() : -1;
+    }
+
+    /**
+     * Escreve só o progresso e os slots, no formato das fornalhas guardadas no world.dat.
+     * @param out Stream de destino.
+     */
+    public void writeLegacy(DataOutputStream out) throws IOException {
+        out.writeFloat(getMeltProgress());
+        out.writeFloat(getFuelLeft());
+        Stacks.write(out, inputStack);
+        Stacks.write(out, fuelStack);
+        Stacks.write(out, outputStack);
+    }
+
+    /**
+     * Lê o que {@link #writeLegacy} escreveu; a fornalha só volta a avançar depois de ser observada.
+     * @param in Stream de origem.
+     */
+    public void readLegacy(DataInputStream in) throws IOException {
+        meltTicks = Math.round(in.readFloat() / VoxelWorld.TICK_SECONDS);
+        fuelTicks = Math.max(0, Math.round(in.readFloat() * MELT_TICKS));
+        inputStack = Stacks.read(in);
+        fuelStack = Stacks.read(in);
+        outputStack = Stacks.read(in);
+        syncedTick = -1;
+    }
+
+    /*
+     * Closed form of ticks run one at a time, where each tick:
+     *  1. delivers a melt held back by a full output once there is room, or else does nothing;
+     *  2. with no input, resets the progress and stops;
+     *  3. with the chamber empty, burns the next fuel item, or stops if there is none;
+     *  4. advances the melt by one tick and burns one tick of fuel;
+     *  5. delivers the melt if it is done and the output has room; otherwise holds it.
+     * Nothing refills the furnace or empties its output between observations, so the ticks that
+     * do work are the first min(ticks, fuel, work) ones.
      */
-    public void updateMelt(float tpf) {
+    private void advance(long ticks) {
         if (inputStack == null) {
-            meltProgress = 0.0f;
+            meltTicks = 0;
             return;
         }
-
-        // Se a fundição terminou, aguarda que o slot de output seja libertado.
-        if (meltProgress >= MELT_TIME_TOTAL) {
-            return;
+        FurnaceRecipe recipe = FurnaceRegistry.findRecipe(inputStack.getItem());
+        if (recipe == null) return;
+        Item outputItem = recipe.getOutput();
+        int room = outputStack == null ? Stacks.MAX_STACK_SIZE
+                : outputStack.isSameItem(outputItem) ? Stacks.MAX_STACK_SIZE - outputStack.getAmount() : 0;
+
+        if (meltTicks >= MELT_TICKS) {
+            if (room == 0) return;
+            deliver(outputItem, 1);
+            meltTicks = 0;
+            room--;
+            if (inputStack == null) return;
         }
 
-        // Tenta consumir uma nova unidade de combustível se a energia acabou.
-        if (fuelLeft <= 0.0f) {
-            if (fuelStack != null && fuelStack.getAmount() > 0) {
-                fuelLeft = FurnaceRegistry.getFuelEfficiency(fuelStack.getItem());
-                fuelStack.removeAmount(1);
-                if (fuelStack.getAmount() == 0) fuelStack = null;
-            } else {
-                return; // Para o progresso se não houver combustível disponível.
-            }
-        }
+        // Melts that can run: every input, but only one more than the output has room for
+        int inputs = inputStack.getAmount();
+        long runnable = Math.min(inputs, room + 1L);
+        long work = (MELT_TICKS - meltTicks) + (runnable - 1) * MELT_TICKS;
+        int perItem = fuelStack == null ? 0 : fuelTicks(fuelStack.getItem());
+        long fuel = fuelTicks + (fuelStack == null ? 0L : (long) fuelStack.getAmount() * perItem);
+        long run = Math.min(ticks, Math.min(fuel, work));
+        if (run <= 0) return;
+
+        burn(run, perItem);
+        long first = MELT_TICKS - meltTicks;
+        long melted = run < first ? 0 : 1 + (run - first) / MELT_TICKS;
+        long delivered = Math.min(melted, room);
+        meltTicks = (int) (meltTicks + run - melted * MELT_TICKS);
+        if (melted > delivered) meltTicks = MELT_TICKS; // the last one waits for room
+        if (delivered > 0) deliver(outputItem, (int) delivered);
+    }
 
-        // Avança o progresso e consome a energia do combustível proporcionalmente ao tempo.
-        float fuelCost = tpf / MELT_TIME_TOTAL;
-        meltProgress += tpf;
-        fuelLeft -= fuelCost;
-
-        // Finaliza o processamento e move o resultado para o slot de saída.
-        if (meltProgress >= MELT_TIME_TOTAL) {
-            FurnaceRecipe recipe = FurnaceRegistry.findRecipe(inputStack.getItem());
-            if (recipe != null) {
-                Item outputItem = recipe.getOutput();
-
-                if (outputStack == null) {
-                    outputStack = new Stacks(outputItem, 1);
-                    inputStack.removeAmount(1);
-                    meltProgress = 0.0f;
-                } else if (outputStack.isSameItem(outputItem) && !outputStack.isFull()) {
-                    outputStack.addAmount(1);
-                    inputStack.removeAmount(1);
-                    if (inputStack.getAmount() == 0) inputStack = null;
-                    meltProgress = 0.0f;
-                }
-            }
+    // Burns ticks of fuel, lighting the next item each time the chamber runs empty
+    private void burn(long ticks, int perItem) {
+        if (ticks <= fuelTicks) {
+            fuelTicks -= (int) ticks;
+            return;
         }
+        long rest = ticks - fuelTicks;
+        long items = (rest + perItem - 1) / perItem;
+        fuelStack.removeAmount((int) items);
+        if (fuelStack.getAmount() == 0) fuelStack = null;
+        fuelTicks = (int) (items * perItem - rest);
+    }
+
+    // Moves count finished melts from the input to the output
+    private void deliver(Item outputItem, int count) {
+        if (outputStack == null) outputStack = new Stacks(outputItem, count);
+        else outputStack.addAmount(count);
+        inputStack.removeAmount(count);
+        if (inputStack.getAmount() == 0) inputStack = null;
+    }
 
-        if (fuelLeft < 0.0f) fuelLeft = 0.0f;
+    private static int fuelTicks(Item item) {
+        return Math.round(FurnaceRegistry.getFuelEfficiency(item) * MELT_TICKS);
     }
-}
\ No newline at end of file
+}
@@ -130,6 +130,16 @@ public class Inventory {
         return inventoryArray[index];
     }
 
+    /**
+     * Substitui o conteúdo de um slot (usado ao carregar um save).
+     * @param index O índice do slot.
+     * @param stack A nova pilha, ou null para esvaziar o slot.
+     */
+    public void setSlot(int index, Stacks stack) {
+        if (index < 0 || index >= inventorySize) return;
+        inventoryArray[index] = stack;
+    }
+
     /**
      * Retorna o índice do slot atualmente selecionado.
      * @return O valor de selectedSlot.
@@ -2,6 +2,10 @@ package jogo.util.inventory;
 
 import jogo.gameobject.item.Item;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * Representa uma pilha (stack) de itens no inventário.
  * Contém uma referência a um tipo de item e a quantidade desse item presente na pilha,
@@ -76,4 +80,45 @@ public class Stacks {
         if (other == null) return false;
         return item.getName().equals(other.getName());
     }
-}
\ No newline at end of file
+
+    /**
+     * Cria uma cópia independente da pilha (o item é partilhado, a quantidade não).
+     * @return Nova pilha com o mesmo item e quantidade.
+     */
+    public Stacks copy() {
+        return new Stacks(item, amount);
+    }
+
+    /**
+     * Escreve uma pilha (ou a sua ausência) num ficheiro de save. O item é guardado pelo nome da
+     * classe e recriado com o construtor sem argumentos em {@link #read(DataInputStream)}.
+     * @param out Stream de destino.
+     * @param stack Pilha a escrever; null ou vazia escreve um slot vazio.
+     */
+    public static void write(DataOutputStream out, Stacks stack) throws IOException {
+        if (stack == null || stack.getAmount() <= 0) {
+            out.writeUTF("");
+            return;
+        }
+        out.writeUTF(stack.getItem().getClass().getName());
+        out.writeInt(stack.getAmount());
+    }
+
+    /**
+     * Lê uma pilha escrita por {@link #write(DataOutputStream, Stacks)}.
+     * @param in Stream de origem.
+     * @return A pilha, ou null se o slot estava vazio ou o item já não existe.
+     */
+    public static Stacks read(DataInputStream in) throws IOException {
+        String type = in.readUTF();
+        if (type.isEmpty()) return null;
+        int amount = in.readInt();
+        try {
+            Item item = (Item) Class.forName(type).getDeclaredConstructor().newInstance();
+            return new Stacks(item, amount);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            System.err.println("Item guardado desconhecido, ignorado: " + type);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package jogo.util.save;
+
+import jogo.gameobject.character.Player;
+import jogo.util.inventory.Inventory;
+import jogo.util.inventory.Stacks;
+import jogo.util.timers.TimerWheel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cópia do estado do jogador que vai para o save (inventário, grelha de crafting, vida, fome e
+ * os temporizadores com nome do relógio de jogo, como a próxima redução de fome).
+ * É criada no thread do jogo com {@link #snapshot(Player, TimerWheel)} e pode ser escrita noutro thread,
+ * porque não partilha pilhas mutáveis com o jogador. A pontuação não é guardada: cada execução
+ * do jogo é um jogo novo em scores.txt.
+ */
+public class PlayerSave {
+    private static final int MAGIC = 0x504C5952; // "PLYR"
+    private static final int VERSION = 2;
+
+    private final Stacks[] inventory;
+    private final int selectedSlot;
+    private final Stacks[] craftingGrid;
+    private final int health;
+    private final int hunger;
+    private final byte[] timers; // TimerWheel#write
+
+    private PlayerSave(Stacks[] inventory, int selectedSlot, Stacks[] craftingGrid, int health, int hunger, byte[] timers) {
+        this.inventory = inventory;
+        this.selectedSlot = selectedSlot;
+        this.craftingGrid = craftingGrid;
+        this.health = health;
+        this.hunger = hunger;
+        this.timers = timers;
+    }
+
+    /**
+     * Copia o estado atual do jogador.
+     * @param player O jogador.
+     * @param timers Relógio de jogo, de onde são copiados os temporizadores com nome.
+     * @return Cópia independente do estado a guardar.
+     */
+    public static PlayerSave snapshot(Player player, TimerWheel timers) {
+        Inventory inv = player.getInventory();
+        Stacks[] slots = new Stacks[inv.getSize()];
+        for (int i = 0; i < slots.length; i++) slots[i] = copy(inv.getSlot(i));
+        Stacks[] grid = player.getCraftingGrid().clone();
+        for (int i = 0; i < grid.length; i++) grid[i] = copy(grid[i]);
+        ByteArrayOutputStream timerBytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(timerBytes)) {
+            timers.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // streams em memória não falham
+        }
+        return new PlayerSave(slots, inv.getSelectedSlot(), grid, player.getHealth(), player.getHunger(), timerBytes.toByteArray());
+    }
+
+    /**
+     * Escreve a cópia em file (ficheiro temporário, sincronizado e movido por cima do anterior).
+     * @param file Ficheiro de destino.
+     */
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(health);
+            out.writeInt(hunger);
+            out.writeInt(selectedSlot);
+            out.writeInt(inventory.length);
+            for (Stacks stack : inventory) Stacks.write(out, stack);
+            out.writeInt(craftingGrid.length);
+            for (Stacks stack : craftingGrid) Stacks.write(out, stack);
+            out.writeInt(timers.length);
+            out.write(timers);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Repõe no jogador o estado guardado em file, se existir.
+     * @param file Ficheiro escrito por {@link #write(Path)}.
+     * @param player O jogador a atualizar.
+     * @param timers Relógio de jogo onde são repostos os temporizadores com nome.
+     * @return true se o estado foi carregado.
+     */
+    public static boolean load(Path file, Player player, TimerWheel timers) throws IOException {
+        if (!Files.isRegularFile(file)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a player save: " + file);
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported player save version " + version);
+            int health = in.readInt();
+            int hunger = in.readInt();
+            int selectedSlot = in.readInt();
+            Inventory inv = player.getInventory();
+            int slots = in.readInt();
+            for (int i = 0; i < slots; i++) inv.setSlot(i, Stacks.read(in));
+            Stacks[] grid = player.getCraftingGrid();
+            int gridSize = in.readInt();
+            for (int i = 0; i < gridSize; i++) {
+                Stacks stack = Stacks.read(in);
+                if (i < grid.length) grid[i] = stack;
+            }
+            inv.setSelectedSlot(selectedSlot);
+            if (health > 0) player.setHealth(health); // um save feito já morto recomeça com a vida cheia
+            player.setHunger(hunger);
+            // Depois da fome, para a inanição (se houver) já estar agendada quando o seu tempo é reposto
+            if (version >= 2) {
+                byte[] timerBytes = new byte[in.readInt()];
+                in.readFully(timerBytes);
+                timers.read(new DataInputStream(new ByteArrayInputStream(timerBytes)));
+            }
+        }
+        return true;
+    }
+
+    private static Stacks copy(Stacks stack) {
+        return stack != null ? stack.copy() : null;
+    }
+}
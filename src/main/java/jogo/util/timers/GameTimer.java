@@ -0,0 +1,59 @@
+package jogo.util.timers;
+
+/**
+ * Temporizador agendado num {@link TimerWheel}. Executa a sua ação quando o tempo de jogo chega
+ * ao prazo e, se for periódico, volta a ficar agendado para o período seguinte. Um temporizador
+ * sem ação serve de cooldown: basta perguntar se ainda está pendente ({@link #isPending()}).
+ */
+public final class GameTimer {
+    static final int IDLE = -1; // not in the wheel (fired or cancelled)
+    static final int DUE = -2;  // taken out of its slot, about to fire this tick
+
+    final TimerWheel wheel;
+    final String key;      // null unless the timer is saved with the wheel
+    final Runnable action; // null for a plain cooldown
+    long deadline;         // tick it fires at
+    long period;           // ticks between runs, 0 for a one-shot timer
+
+    // Intrusive links of the slot list the timer sits in
+    GameTimer prev, next;
+    int level = IDLE;
+    int slot;
+
+    GameTimer(TimerWheel wheel, String key, Runnable action, long deadline, long period) {
+        this.wheel = wheel;
+        this.key = key;
+        this.action = action;
+        this.deadline = deadline;
+        this.period = period;
+    }
+
+    /** Cancela o temporizador; não faz nada se já tiver terminado. */
+    public void cancel() {
+        wheel.cancel(this);
+    }
+
+    /**
+     * Indica se o temporizador ainda vai disparar.
+     * @return true até disparar (ou sempre, se for periódico) ou ser cancelado.
+     */
+    public boolean isPending() {
+        return level != IDLE;
+    }
+
+    /**
+     * Tempo de jogo até ao próximo disparo.
+     * @return Segundos em falta, ou 0 se já não estiver pendente.
+     */
+    public float getRemaining() {
+        return isPending() ? Math.max(0, deadline - wheel.getTick()) * TimerWheel.TICK_SECONDS : 0f;
+    }
+
+    /**
+     * Nome com que o temporizador é guardado, ou null se não for guardado.
+     * @return A chave do temporizador.
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,281 @@
+package jogo.util.timers;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agendador central dos temporizadores de jogo (fome, cooldowns dos NPCs, ticks do mundo, ...),
+ * sobre um relógio de tempo de jogo em ticks de {@link #TICK_SECONDS} segundos. Os sistemas
+ * agendam uma ação para daqui a algum tempo em vez de decrementarem um float a cada frame.
+ * <p>
+ * É uma roda hierárquica: {@value #LEVELS} níveis de {@value #SLOTS} slots, cada nível com slots
+ * {@value #SLOTS} vezes mais largos que o anterior. Um temporizador entra no slot do nível mais
+ * fino que ainda alcança o seu prazo e desce de nível quando o slot de cima chega à vez, por isso
+ * agendar e cancelar custam O(1) e o custo por frame depende dos temporizadores que disparam, não
+ * dos que existem. O relógio pode ser parado ({@link #setPaused}) e acelerado ou abrandado
+ * ({@link #setTimeScale}), e os temporizadores com nome são guardados e repostos com
+ * {@link #write}/{@link #read}. Não é thread-safe: usar só no thread do jogo.
+ */
+public final class TimerWheel {
+    /** Duração de um tick do relógio de jogo, em segundos; os prazos são arredondados para cima a ticks. */
+    public static final float TICK_SECONDS = 0.05f;
+    private static final int TICKS_PER_SECOND = 20;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    // Farthest deadline the top level can tell apart (about 9.7 days); later ones wait there and are re-placed
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final GameTimer[][] slots = new GameTimer[LEVELS][SLOTS];
+    private final Map<String, GameTimer> named = new HashMap<>();
+    // Saved remaining ticks of named timers not scheduled again yet; cleared by the next advance
+    private final Map<String, Long> restored = new HashMap<>();
+    private long tick;         // current game time, in ticks
+    private double pendingTime; // scaled seconds not yet counted as a tick
+    private boolean paused;
+    private float timeScale = 1f;
+    private int size;
+
+    /**
+     * Agenda uma ação para daqui a delay segundos de tempo de jogo.
+     * @param delay Atraso em segundos (pelo menos um tick).
+     * @param action Ação a executar, ou null para um simples cooldown.
+     * @return O temporizador, que pode ser cancelado.
+     */
+    public GameTimer schedule(float delay, Runnable action) {
+        return add(null, toTicks(delay), 0, action);
+    }
+
+    /**
+     * Agenda uma ação que se repete a cada period segundos, a primeira vez daqui a um período.
+     * @param period Período em segundos.
+     * @param action Ação a executar.
+     * @return O temporizador, ativo até ser cancelado.
+     */
+    public GameTimer scheduleRepeating(float period, Runnable action) {
+        long ticks = toTicks(period);
+        return add(null, ticks, ticks, action);
+    }
+
+    /**
+     * Como {@link #schedule(float, Runnable)}, mas com um nome: o temporizador é guardado por
+     * {@link #write} e substitui outro pendente com o mesmo nome. Se um save lido com
+     * {@link #read} tinha um temporizador com este nome, continua com o tempo que lhe faltava.
+     * @param key Nome único do temporizador.
+     */
+    public GameTimer schedule(String key, float delay, Runnable action) {
+        return add(key, toTicks(delay), 0, action);
+    }
+
+    /**
+     * Como {@link #scheduleRepeating(float, Runnable)}, mas com um nome (ver {@link #schedule(String, float, Runnable)}).
+     * @param key Nome único do temporizador.
+     */
+    public GameTimer scheduleRepeating(String key, float period, Runnable action) {
+        long ticks = toTicks(period);
+        return add(key, ticks, ticks, action);
+    }
+
+    /**
+     * Avança o relógio de jogo e executa os temporizadores que chegam ao prazo, pela ordem dos
+     * prazos. Não faz nada enquanto estiver parado. Esquece os tempos lidos por {@link #read}
+     * que nenhum sistema voltou a agendar até aqui.
+     * @param tpf Tempo real desde a última frame, multiplicado pela escala de tempo.
+     * @return Número de temporizadores executados.
+     */
+    public int advance(float tpf) {
+        // Startup is over: whoever owned an unclaimed saved timer no longer schedules it
+        if (!restored.isEmpty()) restored.clear();
+        if (paused) return 0;
+        pendingTime += tpf * (double) timeScale;
+        int fired = 0;
+        while (pendingTime >= TICK_SECONDS) {
+            pendingTime -= TICK_SECONDS;
+            fired += runTick();
+        }
+        return fired;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /** Para (ou retoma) o relógio de jogo: nenhum temporizador avança nem dispara enquanto estiver parado. */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public float getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Define quantos segundos de tempo de jogo passam por segundo real (1 = normal, 0.5 = câmara lenta).
+     * @param timeScale Escala, não negativa.
+     */
+    public void setTimeScale(float timeScale) {
+        if (timeScale < 0 || Float.isNaN(timeScale)) throw new IllegalArgumentException("timeScale: " + timeScale);
+        this.timeScale = timeScale;
+    }
+
+    /** Tempo de jogo atual, em ticks. */
+    public long getTick() {
+        return tick;
+    }
+
+    /** Tempo de jogo atual, em segundos. */
+    public double getTime() {
+        return tick * (double) TICK_SECONDS;
+    }
+
+    /** Número de temporizadores pendentes. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Escreve os temporizadores com nome e o tempo que falta a cada um (os sem nome pertencem a
+     * estado que não é guardado, como os NPCs).
+     * @param out Stream de destino.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(named.size() + restored.size());
+        for (GameTimer timer : named.values()) {
+            out.writeUTF(timer.key);
+            out.writeLong(timer.deadline - tick);
+        }
+        // Still waiting for their system to schedule them again
+        for (Map.Entry<String, Long> entry : restored.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    /**
+     * Repõe o tempo em falta dos temporizadores com nome escritos por {@link #write}. Um
+     * temporizador já agendado com o mesmo nome passa a disparar quando lhe faltava; os outros
+     * ficam à espera de serem agendados, mas só até ao próximo {@link #advance}: os sistemas têm
+     * de os voltar a agendar durante o arranque.
+     * @param in Stream de origem.
+     */
+    public void read(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            long remaining = Math.max(1, in.readLong());
+            GameTimer timer = named.get(key);
+            if (timer == null) {
+                restored.put(key, remaining);
+                continue;
+            }
+            unlink(timer);
+            timer.deadline = tick + remaining;
+            insert(timer);
+        }
+    }
+
+    void cancel(GameTimer timer) {
+        if (timer.level == GameTimer.IDLE) return;
+        if (timer.level == GameTimer.DUE) timer.level = GameTimer.IDLE; // still linked in runTick's list
+        else unlink(timer);
+        size--;
+        if (timer.key != null && named.get(timer.key) == timer) named.remove(timer.key);
+    }
+
+    private GameTimer add(String key, long delay, long period, Runnable action) {
+        if (key != null) {
+            GameTimer old = named.get(key);
+            if (old != null) old.cancel();
+            Long saved = restored.remove(key);
+            if (saved != null) delay = saved;
+        }
+        GameTimer timer = new GameTimer(this, key, action, tick + delay, period);
+        if (key != null) named.put(key, timer);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    // Moves the clock one tick on: cascades the coarser levels whose slot comes up, then fires the due slot
+    private int runTick() {
+        tick++;
+        int index = (int) (tick & MASK);
+        for (int level = 1; level < LEVELS && cascadeBelow(level); level++) {
+            cascade(level, (int) ((tick >>> (SLOT_BITS * level)) & MASK));
+        }
+
+        GameTimer due = slots[0][index];
+        if (due == null) return 0;
+        slots[0][index] = null;
+        for (GameTimer t = due; t != null; t = t.next) t.level = GameTimer.DUE;
+
+        int fired = 0;
+        while (due != null) {
+            GameTimer timer = due;
+            due = timer.next;
+            timer.prev = timer.next = null;
+            if (timer.level != GameTimer.DUE) continue; // cancelled by an earlier action this tick
+            if (timer.period > 0) {
+                timer.deadline += timer.period;
+                insert(timer);
+            } else {
+                timer.level = GameTimer.IDLE;
+                size--;
+                if (timer.key != null && named.get(timer.key) == timer) named.remove(timer.key);
+            }
+            if (timer.action != null) timer.action.run();
+            fired++;
+        }
+        return fired;
+    }
+
+    // Whether every level below this one just wrapped around, so its slot comes up
+    private boolean cascadeBelow(int level) {
+        return (tick & ((1L << (SLOT_BITS * level)) - 1)) == 0;
+    }
+
+    // Re-places the timers of a coarse slot, which now land on finer levels
+    private void cascade(int level, int index) {
+        GameTimer timer = slots[level][index];
+        slots[level][index] = null;
+        while (timer != null) {
+            GameTimer next = timer.next;
+            timer.prev = timer.next = null;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    private void insert(GameTimer timer) {
+        long delta = timer.deadline - tick;
+        long placed = delta > MAX_DELTA ? tick + MAX_DELTA : timer.deadline;
+        int level = 0;
+        while (level < LEVELS - 1 && Math.min(delta, MAX_DELTA) >= 1L << (SLOT_BITS * (level + 1))) level++;
+        int index = (int) ((placed >>> (SLOT_BITS * level)) & MASK);
+        GameTimer head = slots[level][index];
+        timer.next = head;
+        timer.prev = null;
+        if (head != null) head.prev = timer;
+        slots[level][index] = timer;
+        timer.level = level;
+        timer.slot = index;
+    }
+
+    private void unlink(GameTimer timer) {
+        if (timer.prev != null) timer.prev.next = timer.next;
+        else slots[timer.level][timer.slot] = timer.next;
+        if (timer.next != null) timer.next.prev = timer.prev;
+        timer.prev = timer.next = null;
+        timer.level = GameTimer.IDLE;
+    }
+
+    // Seconds to whole ticks, rounded up (float noise aside) and at least one
+    private static long toTicks(float seconds) {
+        return Math.max(1, (long) Math.ceil(seconds * (double) TICKS_PER_SECOND - 1e-3));
+    }
+}
@@ -0,0 +1,94 @@
+package jogo.voxel;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * State attached to a single block, such as a furnace's slots. Block types that need one return it
+ * from {@link VoxelBlockType#createBlockEntity()}; the world creates it the first time it is asked
+ * for ({@link VoxelWorld#getBlockEntity}) and drops it when the block is replaced.
+ * <p>
+ * An entity lives in the chunk that holds its block: it is saved in the chunk's region record,
+ * after the voxels, and unloaded with the chunk. It is ticked only while it has work to do:
+ * {@link #tick} returning false takes it out of the world's active set, and {@link #markChanged()}
+ * (e.g. after a player put something in) puts it back. Loaded entities start active, so each one
+ * decides on its first tick.
+ * <p>
+ * An entity whose state follows from elapsed time alone can skip ticking altogether: it keeps the
+ * world tick it was last computed for and jumps to the current one in {@link #catchUp}, which the
+ * world calls whenever the entity is observed, i.e. handed out or saved.
+ */
+public abstract class BlockEntity {
+    private Chunk chunk;
+    private int index;
+    private byte blockId;
+    private VoxelWorld world; // set while the chunk is loaded in a world
+    boolean active;  // in the world's active set
+    boolean working; // what the last tick returned
+
+    /**
+     * Advances the entity by tpf seconds. Runs on the world's thread.
+     * @return true while it still has work to do; false until the next {@link #markChanged()}.
+     */
+    public abstract boolean tick(float tpf);
+
+    /** Writes the entity's state; the type is given by the block it belongs to. */
+    public abstract void write(DataOutputStream out) throws IOException;
+
+    /** Reads back what {@link #write} wrote; the stream ends where the entity's data does. */
+    public abstract void read(DataInputStream in) throws IOException;
+
+    /**
+     * Brings a lazily computed entity up to world tick {@code tick} (see {@link VoxelWorld#getWorldTick()}).
+     * Called before the entity is handed out by {@link VoxelWorld#getBlockEntity} and before it is
+     * saved, including when its chunk unloads. Does nothing by default.
+     */
+    protected void catchUp(long tick) {}
+
+    /** Brings the entity up to the world's current tick; call before reading or changing its state. */
+    public final void sync() {
+        if (world != null) catchUp(world.getWorldTick());
+    }
+
+    /**
+     * Records that the entity changed outside of {@link #tick}: its chunk will be saved again and
+     * it is ticked from the next update.
+     */
+    public final void markChanged() {
+        if (chunk == null) return;
+        chunk.markUnsaved();
+        if (world != null) world.activate(this);
+    }
+
+    public int getX() { return (chunk.getChunkX() << Chunk.SHIFT) + (index >> (Chunk.SHIFT * 2)); }
+
+    public int getY() { return (chunk.getChunkY() << Chunk.SHIFT) + (index & Chunk.MASK); }
+
+    public int getZ() { return (chunk.getChunkZ() << Chunk.SHIFT) + ((index >> Chunk.SHIFT) & Chunk.MASK); }
+
+    // Owner chunk, local voxel index and the block id the entity was made for
+    void bind(Chunk chunk, int index, byte blockId) {
+        this.chunk = chunk;
+        this.index = index;
+        this.blockId = blockId;
+    }
+
+    void unbind() {
+        chunk = null;
+        world = null;
+    }
+
+    void setWorld(VoxelWorld world) { this.world = world; }
+
+    VoxelWorld getWorld() { return world; }
+
+    Chunk getChunk() { return chunk; }
+
+    int getIndex() { return index; }
+
+    /** Whether the block the entity was made for is still in place. */
+    boolean isValid() {
+        return chunk != null && chunk.get(index >> (Chunk.SHIFT * 2), index & Chunk.MASK, (index >> Chunk.SHIFT) & Chunk.MASK) == blockId;
+    }
+}
@@ -0,0 +1,174 @@
+package jogo.voxel;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.MatParamTexture;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState;
+import com.jme3.math.ColorRGBA;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.TextureArray;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.texture.image.ImageRaster;
+import com.jme3.util.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The material shared by every chunk mesh. At startup the diffuse texture of each block type
+ * (taken from {@link VoxelBlockType#getMaterial(AssetManager)}) is resampled to a common size and
+ * stored in one {@link TextureArray}, with the layer index equal to the block id. Chunk vertices
+ * carry that layer in their third texture coordinate, so a chunk is a single geometry with a single
+ * material. Lighting, wireframe and face culling are changed in place on that material.
+ */
+public class BlockMaterialCache {
+    /** Edge length of every texture array layer; block textures are resampled to this size. */
+    public static final int LAYER_SIZE = 256;
+
+    private final Material chunkMaterial;
+    private final TextureArray textureArray;
+
+    private boolean lit = true;
+    private boolean wireframe = false;
+    private boolean culling = true;
+
+    public BlockMaterialCache(AssetManager assetManager, VoxelPalette palette) {
+        long start = System.nanoTime();
+        List<Image> layers = new ArrayList<>(palette.size());
+        for (int i = 0; i < palette.size(); i++) {
+            layers.add(resample(blockTexture(assetManager, palette.get((byte) i))));
+        }
+        textureArray = new TextureArray(layers);
+        // Greedy-merged faces carry UVs beyond [0,1] so the texture has to tile
+        textureArray.setWrap(Texture.WrapMode.Repeat);
+        textureArray.setMagFilter(Texture.MagFilter.Bilinear);
+        textureArray.setMinFilter(Texture.MinFilter.Trilinear);
+        textureArray.setAnisotropicFilter(4);
+
+        chunkMaterial = new Material(assetManager, "MatDefs/VoxelArray.j3md");
+        chunkMaterial.setTexture("DiffuseArray", textureArray);
+        chunkMaterial.setColor("Specular", ColorRGBA.White.mult(0.02f)); // reduced specular
+        chunkMaterial.setFloat("Shininess", 32f);
+        applyRenderFlags();
+        System.out.println("Block texture array built in " + ((System.nanoTime() - start) / 1_000_000.0) + " ms: "
+                + layers.size() + " layers of " + LAYER_SIZE + "x" + LAYER_SIZE);
+    }
+
+    /** The material for chunk geometries, in the current render mode. */
+    public Material getChunkMaterial() {
+        return chunkMaterial;
+    }
+
+    public boolean isLit() { return lit; }
+    public boolean isWireframe() { return wireframe; }
+    public boolean isCulling() { return culling; }
+
+    public void setLit(boolean lit) {
+        this.lit = lit;
+        chunkMaterial.setBoolean("Unshaded", !lit);
+    }
+
+    public void setWireframe(boolean wireframe) {
+        this.wireframe = wireframe;
+        applyRenderFlags();
+    }
+
+    public void setCulling(boolean culling) {
+        this.culling = culling;
+        applyRenderFlags();
+    }
+
+    private void applyRenderFlags() {
+        chunkMaterial.getAdditionalRenderState().setFaceCullMode(culling ? RenderState.FaceCullMode.Back : RenderState.FaceCullMode.Off);
+        chunkMaterial.getAdditionalRenderState().setWireframe(wireframe);
+    }
+
+    // Diffuse image of a block type's own material, or null (air, untextured types)
+    private static Image blockTexture(AssetManager assetManager, VoxelBlockType type) {
+        Material m = type.getMaterial(assetManager);
+        if (m == null) return null;
+        MatParamTexture diffuse = m.getTextureParam("DiffuseMap");
+        if (diffuse == null) diffuse = m.getTextureParam("ColorMap");
+        return diffuse != null ? diffuse.getTextureValue().getImage() : null;
+    }
+
+    /**
+     * Box-filters an image of any size and format down (or up) to a LAYER_SIZE square RGBA8 image.
+     * A missing image becomes a fully transparent layer.
+     */
+    private static Image resample(Image src) {
+        ByteBuffer data = BufferUtils.createByteBuffer(LAYER_SIZE * LAYER_SIZE * 4);
+        Image dst = new Image(Image.Format.RGBA8, LAYER_SIZE, LAYER_SIZE, data, ColorSpace.sRGB);
+        if (src == null) return dst;
+        int[] channels = byteChannels(src.getFormat());
+        if (channels == null) {
+            resampleRaster(src, dst);
+            return dst;
+        }
+        // Fast path for plain 8-bit channel formats: average the bytes directly
+        ByteBuffer buf = src.getData(0).duplicate();
+        buf.clear();
+        byte[] in = new byte[buf.remaining()];
+        buf.get(in);
+        int bpp = channels[4];
+        int sw = src.getWidth(), sh = src.getHeight();
+        for (int y = 0; y < LAYER_SIZE; y++) {
+            int y0 = y * sh / LAYER_SIZE, y1 = Math.max(y0 + 1, (y + 1) * sh / LAYER_SIZE);
+            for (int x = 0; x < LAYER_SIZE; x++) {
+                int x0 = x * sw / LAYER_SIZE, x1 = Math.max(x0 + 1, (x + 1) * sw / LAYER_SIZE);
+                int r = 0, g = 0, b = 0, a = 0;
+                for (int sy = y0; sy < y1; sy++) {
+                    int p = (sy * sw + x0) * bpp;
+                    for (int sx = x0; sx < x1; sx++, p += bpp) {
+                        r += in[p + channels[0]] & 0xFF;
+                        g += in[p + channels[1]] & 0xFF;
+                        b += in[p + channels[2]] & 0xFF;
+                        a += channels[3] < 0 ? 255 : in[p + channels[3]] & 0xFF;
+                    }
+                }
+                int n = (x1 - x0) * (y1 - y0);
+                data.put((byte) (r / n)).put((byte) (g / n)).put((byte) (b / n)).put((byte) (a / n));
+            }
+        }
+        data.flip();
+        return dst;
+    }
+
+    // Byte offsets of r, g, b, a (-1 if absent) and bytes per pixel, or null if not a plain 8-bit format
+    private static int[] byteChannels(Image.Format format) {
+        return switch (format) {
+            case RGB8 -> new int[]{0, 1, 2, -1, 3};
+            case BGR8 -> new int[]{2, 1, 0, -1, 3};
+            case RGBA8 -> new int[]{0, 1, 2, 3, 4};
+            case BGRA8 -> new int[]{2, 1, 0, 3, 4};
+            case ABGR8 -> new int[]{3, 2, 1, 0, 4};
+            case ARGB8 -> new int[]{1, 2, 3, 0, 4};
+            default -> null;
+        };
+    }
+
+    // Generic (slower) path through ImageRaster for any other format
+    private static void resampleRaster(Image src, Image dst) {
+        ImageRaster in = ImageRaster.create(src);
+        ImageRaster out = ImageRaster.create(dst);
+        int sw = src.getWidth(), sh = src.getHeight();
+        ColorRGBA c = new ColorRGBA();
+        ColorRGBA sum = new ColorRGBA();
+        for (int y = 0; y < LAYER_SIZE; y++) {
+            int y0 = y * sh / LAYER_SIZE, y1 = Math.max(y0 + 1, (y + 1) * sh / LAYER_SIZE);
+            for (int x = 0; x < LAYER_SIZE; x++) {
+                int x0 = x * sw / LAYER_SIZE, x1 = Math.max(x0 + 1, (x + 1) * sw / LAYER_SIZE);
+                sum.set(0, 0, 0, 0);
+                for (int sy = y0; sy < y1; sy++) {
+                    for (int sx = x0; sx < x1; sx++) {
+                        in.getPixel(sx, sy, c);
+                        sum.addLocal(c);
+                    }
+                }
+                out.setPixel(x, y, sum.multLocal(1f / ((x1 - x0) * (y1 - y0))));
+            }
+        }
+    }
+}
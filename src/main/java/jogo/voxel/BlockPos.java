@@ -0,0 +1,28 @@
+package jogo.voxel;
+
+/**
+ * Block coordinates packed into a single long, the key of every map, set and queue that holds
+ * state per block. x and z get 26 bits each and y 12, all two's complement, so x and z cover
+ * about ±33 million blocks and y ±2048. The blocks of one vertical column share the high bits,
+ * so their keys sit next to each other.
+ */
+public final class BlockPos {
+    private BlockPos() {}
+
+    /** Key of block (x,y,z). */
+    public static long pack(int x, int y, int z) {
+        return ((long) x << 38) | (((long) z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+    }
+
+    public static int x(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int y(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int z(long key) {
+        return (int) (key << 26 >> 38);
+    }
+}
@@ -0,0 +1,45 @@
+package jogo.voxel;
+
+/**
+ * FIFO of world cells waiting for a block update, as {@link BlockPos} keys. A cell already waiting is not queued twice, so several
+ * edits around the same cell in one frame cost a single update.
+ */
+class BlockUpdateQueue {
+    private final LongObjectMap<Boolean> queued = new LongObjectMap<>();
+    private long[] ring = new long[256];
+    private int head;
+    private int size;
+
+    /** Queues a cell; returns false if it was already waiting. */
+    boolean add(long cell) {
+        if (queued.put(cell, Boolean.TRUE) != null) return false;
+        if (size == ring.length) {
+            long[] grown = new long[ring.length * 2];
+            for (int i = 0; i < size; i++) grown[i] = ring[(head + i) % ring.length];
+            ring = grown;
+            head = 0;
+        }
+        ring[(head + size) % ring.length] = cell;
+        size++;
+        return true;
+    }
+
+    /** Takes the oldest cell; only call when {@link #size()} is positive. */
+    long poll() {
+        long cell = ring[head];
+        head = (head + 1) % ring.length;
+        size--;
+        queued.remove(cell);
+        return cell;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        queued.clear();
+        head = 0;
+        size = 0;
+    }
+}
@@ -1,147 +1,724 @@
 package jogo.voxel;
 
-import com.jme3.asset.AssetManager;
 import com.jme3.bullet.PhysicsSpace;
 import com.jme3.bullet.collision.shapes.CollisionShape;
-import com.jme3.bullet.control.RigidBodyControl;
-import com.jme3.bullet.util.CollisionShapeFactory;
-import com.jme3.material.Material;
+import com.jme3.bullet.objects.PhysicsRigidBody;
+import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
-import jogo.framework.math.Vec3;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents a chunk of the voxel world (e.g., 16x16x16 blocks).
  */
 public class Chunk {
     public static final int SIZE = 16;
+    /** log2(SIZE): world coordinate >> SHIFT gives the chunk coordinate, & MASK the local one. */
+    public static final int SHIFT = 4;
+    public static final int MASK = SIZE - 1;
+    public static final int VOLUME = SIZE * SIZE * SIZE;
     private final int chunkX, chunkY, chunkZ;
-    private final byte[][][] vox;
+    // Flat voxel storage, index (x << 8) | (z << 4) | y: every (x,z) column is 16 contiguous bytes.
+    // Null while the chunk holds a single block type (uniformId); inflated on the first differing write.
+    private byte[] vox;
+    // True while vox is also held by a save snapshot: the next write copies it first (copy-on-write)
+    private boolean voxShared;
+    // The shared array the last copy-on-write copied, so the snapshot can tell a copy from a fill or compact
+    private byte[] voxCopiedFrom;
+    private byte uniformId = VoxelPalette.AIR_ID;
+    private int nonAirCount = 0;
+    private int solidCount = 0;
+    // Local indices of tickable voxels for random ticks; tickSlot maps a voxel to its entry (allocated on first use)
+    private short[] tickables = new short[0];
+    private int tickableCount;
+    private short[] tickSlot;
+    private final VoxelPalette palette;
     private final Node node;
 
     private boolean dirty = true;
+    // Voxels changed since the chunk was last written to, or read from, its region file
+    private boolean unsaved = true;
 
-    private RigidBodyControl rigidBody;
+    private int triangleCount = 0;
+    private int naiveTriangleCount = 0;
+    private int culledFaceCount = 0;
+    private int drawCalls = 0;
+    private int perTypeDrawCalls = 0;
+    private int meshBytes = 0;
+    private int floatMeshBytes = 0;
 
-    public Chunk(int chunkX, int chunkY, int chunkZ) {
+    private static final int HALO = SIZE + 2;
+
+    // Neighbour offset per face, in MeshBuilder.Face order
+    private static final int[][] FACE_DIRS = {
+            { 1, 0, 0}, {-1, 0, 0},
+            { 0, 1, 0}, { 0,-1, 0},
+            { 0, 0, 1}, { 0, 0,-1},
+    };
+
+    // Reusable meshing buffers, one set per meshing thread, so a rebuild allocates only the final meshes
+    private static final ThreadLocal<MeshScratch> SCRATCH = ThreadLocal.withInitial(MeshScratch::new);
+
+    private PhysicsRigidBody rigidBody;
+    private int[] collisionBoxes = new int[0]; // from the last applied mesh, see ChunkCollision.packBox
+    private int[] bodyBoxes; // boxes the current rigid body shape was built from
+    // Block entities by local index, see BlockEntity; null until the first one
+    private LongObjectMap<BlockEntity> blockEntities;
+
+
+    public Chunk(int chunkX, int chunkY, int chunkZ, VoxelPalette palette) {
         this.chunkX = chunkX;
         this.chunkY = chunkY;
         this.chunkZ = chunkZ;
-        this.vox = new byte[SIZE][SIZE][SIZE];
+        this.palette = palette;
         this.node = new Node("Chunk_" + chunkX + "," + chunkY + "," + chunkZ);
     }
 
     public Node getNode() { return node; }
-    public byte get(int x, int y, int z) { return vox[x][y][z]; }
-    public void set(int x, int y, int z, byte id) { vox[x][y][z] = id; }
+
+    public byte get(int x, int y, int z) {
+        return vox == null ? uniformId : vox[index(x, y, z)];
+    }
+
+    public void set(int x, int y, int z, byte id) {
+        if (vox == null) {
+            if (id == uniformId) return;
+            inflate();
+        }
+        int i = index(x, y, z);
+        byte old = vox[i];
+        if (old == id) return;
+        if (voxShared) {
+            voxCopiedFrom = vox;
+            vox = vox.clone();
+            voxShared = false;
+        }
+        vox[i] = id;
+        unsaved = true;
+        count(old, -1);
+        count(id, 1);
+        if (palette.isTickable(old)) removeTickable(i);
+        if (palette.isTickable(id)) addTickable(i);
+        if (nonAirCount == 0) compact();
+    }
+
+    /** Flat index of local (x,y,z) into the voxel array. */
+    public static int index(int x, int y, int z) {
+        return (x << (SHIFT * 2)) | (z << SHIFT) | y;
+    }
+
+    /** Copies the SIZE voxels of local column (x,z), bottom to top, into dst starting at off. */
+    public void getColumn(int x, int z, byte[] dst, int off) {
+        if (vox == null) {
+            java.util.Arrays.fill(dst, off, off + SIZE, uniformId);
+        } else {
+            System.arraycopy(vox, index(x, 0, z), dst, off, SIZE);
+        }
+    }
+
+    /** Overwrites local column (x,z), bottom to top, with SIZE voxels from src starting at off. */
+    public void setColumn(int x, int z, byte[] src, int off) {
+        for (int y = 0; y < SIZE; y++) set(x, y, z, src[off + y]);
+    }
+
+    /** Sets every voxel to id; the chunk becomes uniform and drops its voxel array. */
+    public void fill(byte id) {
+        vox = null;
+        voxShared = false;
+        uniformId = id;
+        unsaved = true;
+        nonAirCount = 0;
+        solidCount = 0;
+        count(id, VOLUME);
+        tickableCount = 0;
+        if (palette.isTickable(id)) {
+            for (int i = 0; i < VOLUME; i++) addTickable(i);
+        }
+    }
+
+    /** Copies all VOLUME voxels, in {@link #index} order, into dst. */
+    void copyVoxels(byte[] dst) {
+        if (vox == null) java.util.Arrays.fill(dst, 0, VOLUME, uniformId);
+        else System.arraycopy(vox, 0, dst, 0, VOLUME);
+    }
+
+    /**
+     * Replaces the whole chunk with VOLUME voxels from src, in {@link #index} order, rebuilding the
+     * counters and the tickable index. The chunk counts as saved afterwards.
+     */
+    void loadVoxels(byte[] src) {
+        fill(src[0]);
+        for (int i = 1; i < VOLUME; i++) {
+            if (src[i] != uniformId) {
+                vox = java.util.Arrays.copyOf(src, VOLUME);
+                voxShared = false;
+                nonAirCount = 0;
+                solidCount = 0;
+                tickableCount = 0;
+                for (int j = 0; j < VOLUME; j++) {
+                    count(vox[j], 1);
+                    if (palette.isTickable(vox[j])) addTickable(j);
+                }
+                break;
+            }
+        }
+        unsaved = false;
+    }
+
+    /**
+     * Hands the voxel array to a save snapshot without copying it; the chunk copies the array on
+     * its next write instead, so the snapshot never changes. Returns null for a uniform chunk
+     * (see {@link #getUniformId()}).
+     */
+    byte[] shareVoxels() {
+        if (vox != null) voxShared = true;
+        return vox;
+    }
+
+    /**
+     * Called once the snapshot holding shared is written. Returns true if a write made the chunk
+     * copy that array, i.e. the copy-on-write cost was paid; a chunk that dropped the array instead
+     * (filled or compacted to a uniform chunk) copied nothing.
+     */
+    boolean releaseVoxels(byte[] shared) {
+        if (vox == shared) {
+            voxShared = false;
+            return false;
+        }
+        boolean copied = voxCopiedFrom == shared;
+        if (copied) voxCopiedFrom = null;
+        return copied;
+    }
+
+    /** Whether the voxels changed since the chunk was last saved or loaded. */
+    boolean isUnsaved() { return unsaved; }
+
+    void markSaved() { unsaved = false; }
+
+    void markUnsaved() { unsaved = true; }
+
+    /** Block entity of the voxel at local index i, or null. */
+    BlockEntity getBlockEntity(int i) {
+        return blockEntities == null ? null : blockEntities.get(i);
+    }
+
+    /** Attaches entity to the voxel at local index i, which holds blockId. */
+    void putBlockEntity(int i, byte blockId, BlockEntity entity) {
+        if (blockEntities == null) blockEntities = new LongObjectMap<>();
+        entity.bind(this, i, blockId);
+        BlockEntity old = blockEntities.put(i, entity);
+        if (old != null && old != entity) old.unbind();
+    }
+
+    /** Detaches and returns the block entity at local index i, or null if there is none. */
+    BlockEntity removeBlockEntity(int i) {
+        BlockEntity entity = blockEntities == null ? null : blockEntities.remove(i);
+        if (entity == null) return null;
+        entity.unbind();
+        unsaved = true;
+        return entity;
+    }
+
+    Collection<BlockEntity> getBlockEntities() {
+        return blockEntities == null ? List.of() : blockEntities.values();
+    }
+
+    /**
+     * Serializes the block entities for the chunk's region record: a count, then per entity its
+     * local index, the length of its data and the data. Empty when there are none. Entities are
+     * first brought up to world tick {@code tick} (see {@link BlockEntity#catchUp}).
+     */
+    byte[] saveBlockEntities(long tick) {
+        if (blockEntities == null || blockEntities.isEmpty()) return new byte[0];
+        for (BlockEntity entity : blockEntities.values()) entity.catchUp(tick);
+        try {
+            return encodeBlockEntities(blockEntities);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory streams do not fail
+        }
+    }
+
+    /** Encodes entities keyed by local index in the {@link #saveBlockEntities} format. */
+    static byte[] encodeBlockEntities(LongObjectMap<? extends BlockEntity> byIndex) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream entityBytes = new ByteArrayOutputStream();
+        DataOutputStream entityOut = new DataOutputStream(entityBytes);
+        out.writeShort(byIndex.size());
+        for (long i : byIndex.keys()) {
+            entityBytes.reset();
+            byIndex.get(i).write(entityOut);
+            entityOut.flush();
+            out.writeShort((int) i);
+            out.writeInt(entityBytes.size());
+            entityBytes.writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Recreates the block entities saved by {@link #saveBlockEntities}, after the voxels were
+     * loaded. Entities whose voxel no longer has an entity type are skipped.
+     */
+    void loadBlockEntities(byte[] data) throws IOException {
+        if (data == null || data.length == 0) return;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int count = in.readUnsignedShort();
+        for (int n = 0; n < count; n++) {
+            int i = in.readUnsignedShort();
+            byte[] entityData = new byte[in.readInt()];
+            in.readFully(entityData);
+            if (i >= VOLUME) throw new IOException("Corrupt block entity index " + i);
+            byte id = vox == null ? uniformId : vox[i];
+            BlockEntity entity = palette.get(id).createBlockEntity();
+            if (entity == null) continue;
+            entity.read(new DataInputStream(new ByteArrayInputStream(entityData)));
+            putBlockEntity(i, id, entity);
+        }
+    }
+
+    /** Number of tickable voxels in this chunk. */
+    public int getTickableCount() { return tickableCount; }
+
+    /** Local index (see {@link #index}) of the n-th tickable voxel, n in [0, getTickableCount()). */
+    public int getTickable(int n) { return tickables[n]; }
+
+    private void addTickable(int i) {
+        if (tickSlot == null) tickSlot = new short[VOLUME];
+        if (tickableCount == tickables.length) tickables = java.util.Arrays.copyOf(tickables, Math.max(16, tickableCount * 2));
+        tickSlot[i] = (short) tickableCount;
+        tickables[tickableCount++] = (short) i;
+    }
+
+    // Swap-remove: the last entry takes the removed voxel's slot
+    private void removeTickable(int i) {
+        int slot = tickSlot[i];
+        short last = tickables[--tickableCount];
+        tickables[slot] = last;
+        tickSlot[last] = (short) slot;
+    }
+
+    /** Copies the horizontal slice at local y into dst, indexed x * SIZE + z. */
+    public void getSlice(int y, byte[] dst) {
+        if (vox == null) {
+            java.util.Arrays.fill(dst, 0, SIZE * SIZE, uniformId);
+            return;
+        }
+        for (int i = 0, j = y; i < SIZE * SIZE; i++, j += SIZE) dst[i] = vox[j];
+    }
+
+    /** True while the chunk holds a single block type and has no voxel array allocated. */
+    public boolean isUniform() { return vox == null; }
+
+    /** Block type of a uniform chunk; meaningless when {@link #isUniform()} is false. */
+    public byte getUniformId() { return uniformId; }
+
+    /** Number of voxels that are not air. */
+    public int getNonAirCount() { return nonAirCount; }
+
+    /** Number of solid voxels; 0 means nothing to mesh or hit, VOLUME means fully solid. */
+    public int getSolidCount() { return solidCount; }
+
+    /**
+     * Drops the voxel array if every voxel holds the same block type. Cheap to call when the
+     * counters already rule it out (mixed air and non-air).
+     */
+    public void compact() {
+        if (vox == null) return;
+        if (nonAirCount != 0 && nonAirCount != VOLUME) return;
+        byte first = vox[0];
+        for (int i = 1; i < VOLUME; i++) {
+            if (vox[i] != first) return;
+        }
+        vox = null;
+        voxShared = false;
+        uniformId = first;
+    }
+
+    private void inflate() {
+        vox = new byte[VOLUME];
+        voxShared = false;
+        if (uniformId != VoxelPalette.AIR_ID) java.util.Arrays.fill(vox, uniformId);
+    }
+
+    private void count(byte id, int delta) {
+        if (id == VoxelPalette.AIR_ID) return;
+        nonAirCount += delta;
+        if (palette.isSolid(id)) solidCount += delta;
+    }
+
+    /**
+     * Whether meshing this chunk can be skipped: it has no solid voxels, or it is fully solid and
+     * so are all six neighbours, so every face would be culled.
+     */
+    boolean hasNoVisibleFaces(VoxelWorld world) {
+        if (solidCount == 0) return true;
+        if (solidCount != VOLUME || world == null) return false;
+        return isFullySolid(world.getChunkAt(chunkX - 1, chunkY, chunkZ)) && isFullySolid(world.getChunkAt(chunkX + 1, chunkY, chunkZ))
+                && isFullySolid(world.getChunkAt(chunkX, chunkY - 1, chunkZ)) && isFullySolid(world.getChunkAt(chunkX, chunkY + 1, chunkZ))
+                && isFullySolid(world.getChunkAt(chunkX, chunkY, chunkZ - 1)) && isFullySolid(world.getChunkAt(chunkX, chunkY, chunkZ + 1));
+    }
+
+    private static boolean isFullySolid(Chunk c) {
+        return c != null && c.solidCount == VOLUME;
+    }
+
     public int getChunkX() { return chunkX; }
     public int getChunkY() { return chunkY; }
     public int getChunkZ() { return chunkZ; }
 
-    public void markDirty() { dirty = true; }
+    void markDirty() { dirty = true; }
     public boolean isDirty() { return dirty; }
     public void clearDirty() { dirty = false; }
 
-    // Build and attach mesh for this chunk
-    public void buildMesh(AssetManager assetManager, VoxelPalette palette) {
+    /**
+     * Builds and attaches the mesh for this chunk on the calling thread. When a world is given, the
+     * voxels bordering this chunk are read from the neighbouring chunks so faces hidden by a solid
+     * neighbour are culled; without a world everything outside the chunk counts as air.
+     */
+    public void buildMesh(BlockMaterialCache materials, VoxelPalette palette, MeshingMode mode, VoxelWorld world) {
+        applyMesh(meshSnapshot(snapshot(world), palette, mode), materials);
+    }
+
+    /**
+     * Copies this chunk's voxels plus a one-voxel border from the neighbouring chunks into a new
+     * padded halo array. Only the six face slabs of the border are read, which is all that face
+     * culling needs; edges and corners stay air. Must run on the thread that edits the world.
+     * Returns null when the chunk has no visible faces, which meshes to an empty result.
+     */
+    public byte[] snapshot(VoxelWorld world) {
+        if (hasNoVisibleFaces(world)) return null;
+        byte[] halo = new byte[HALO * HALO * HALO];
+        java.util.Arrays.fill(halo, VoxelPalette.AIR_ID);
+        for (int x = 0; x < SIZE; x++)
+            for (int z = 0; z < SIZE; z++)
+                getColumn(x, z, halo, haloIndex(x, 0, z));
+        if (world == null) return halo;
+        // Face slabs of the six neighbours; x and z neighbours copy whole columns
+        Chunk nx = world.getChunkAt(chunkX - 1, chunkY, chunkZ), px = world.getChunkAt(chunkX + 1, chunkY, chunkZ);
+        Chunk ny = world.getChunkAt(chunkX, chunkY - 1, chunkZ), py = world.getChunkAt(chunkX, chunkY + 1, chunkZ);
+        Chunk nz = world.getChunkAt(chunkX, chunkY, chunkZ - 1), pz = world.getChunkAt(chunkX, chunkY, chunkZ + 1);
+        for (int a = 0; a < SIZE; a++) {
+            if (nx != null) nx.getColumn(MASK, a, halo, haloIndex(-1, 0, a));
+            if (px != null) px.getColumn(0, a, halo, haloIndex(SIZE, 0, a));
+            if (nz != null) nz.getColumn(a, MASK, halo, haloIndex(a, 0, -1));
+            if (pz != null) pz.getColumn(a, 0, halo, haloIndex(a, 0, SIZE));
+            for (int b = 0; b < SIZE; b++) {
+                if (ny != null) halo[haloIndex(a, -1, b)] = ny.get(a, MASK, b);
+                if (py != null) halo[haloIndex(a, SIZE, b)] = py.get(a, 0, b);
+            }
+        }
+        return halo;
+    }
+
+    /**
+     * Meshes a snapshot taken with {@link #snapshot(VoxelWorld)} into plain arrays. Touches no
+     * scene graph or chunk state, so it is safe to run on a worker thread.
+     */
+    public MeshData meshSnapshot(byte[] halo, VoxelPalette palette, MeshingMode mode) {
+        if (halo == null) return new MeshData(mode);
         long start = System.nanoTime();
-        node.detachAllChildren();
-        Map<Byte, MeshBuilder> builders = new HashMap<>();
+        MeshScratch scratch = SCRATCH.get();
+        for (int i = 0; i < palette.size(); i++) {
+            scratch.solid[i] = palette.get((byte) i).isSolid();
+            scratch.used[i] = false;
+        }
+        scratch.builder.clear();
+        scratch.halo = halo;
+        scratch.culledFaces = 0;
+        int exposedFaces;
+        if (mode == MeshingMode.GREEDY) {
+            exposedFaces = buildGreedyFaces(scratch);
+        } else {
+            exposedFaces = buildNaiveFaces(scratch);
+        }
+        MeshData data = new MeshData(mode);
+        data.collisionBoxes = buildCollisionBoxes(scratch);
+        scratch.halo = null;
+        if (!scratch.builder.isEmpty()) data.arrays = scratch.builder.toArrays();
         for (int i = 0; i < palette.size(); i++) {
-            if (i == VoxelPalette.AIR_ID) continue;
-            MeshBuilder mb = new MeshBuilder();
-            // Randomize UVs only for dirt to add variation without per-block materials
-            mb.setRandomizeUV(true);
-            builders.put((byte)i, mb);
-        }
-        // Track first block position for each type
-        Map<Byte, Vec3> firstBlockPos = new HashMap<>();
+            if (scratch.used[i]) data.blockTypes++;
+        }
+        data.exposedFaces = exposedFaces;
+        data.culledFaces = scratch.culledFaces;
+        data.meshNanos = System.nanoTime() - start;
+        return data;
+    }
+
+    /**
+     * Replaces this chunk's geometry with the one described by the mesh data. Must run on the
+     * render thread; the old geometry stays attached until this call, so the chunk is never empty.
+     * All block types share one geometry and the texture array material: one draw call per chunk.
+     */
+    public void applyMesh(MeshData data, BlockMaterialCache materials) {
+        node.detachAllChildren();
+        int geomCount = 0;
+        int triangles = 0;
+        if (data.arrays != null) {
+            Mesh mesh = MeshBuilder.build(data.arrays);
+            Geometry g = new Geometry("chunk_"+chunkX+"_"+chunkY+"_"+chunkZ, mesh);
+            // Vertices are chunk-local
+            g.setLocalTranslation(chunkX * SIZE, chunkY * SIZE, chunkZ * SIZE);
+            g.setMaterial(materials.getChunkMaterial());
+            node.attachChild(g);
+            geomCount++;
+            triangles += mesh.getTriangleCount();
+        }
+        drawCalls = geomCount;
+        perTypeDrawCalls = data.blockTypes;
+        collisionBoxes = data.collisionBoxes;
+        meshBytes = data.arrays != null ? data.arrays.getPackedBytes() : 0;
+        floatMeshBytes = data.arrays != null ? data.arrays.getFloatBytes() : 0;
+        naiveTriangleCount = data.exposedFaces * 2;
+        triangleCount = triangles;
+        culledFaceCount = data.culledFaces;
+    }
+
+    // Index into the (SIZE+2)^3 halo array for chunk-local coordinates in [-1, SIZE], y fastest like vox
+    private static int haloIndex(int x, int y, int z) {
+        return ((x + 1) * HALO + (z + 1)) * HALO + (y + 1);
+    }
+
+    /**
+     * Whether the face of the solid voxel at local (x,y,z) in the given direction is exposed.
+     * Faces hidden by a solid voxel of a neighbouring chunk are counted as culled.
+     */
+    private static boolean isFaceExposed(MeshScratch scratch, int x, int y, int z, int face) {
+        int[] dir = FACE_DIRS[face];
+        int nx = x + dir[0], ny = y + dir[1], nz = z + dir[2];
+        if (!scratch.solid[scratch.halo[haloIndex(nx, ny, nz)] & 0xFF]) return true;
+        if (nx < 0 || ny < 0 || nz < 0 || nx >= SIZE || ny >= SIZE || nz >= SIZE) scratch.culledFaces++;
+        return false;
+    }
+
+    // One quad per exposed voxel face
+    private int buildNaiveFaces(MeshScratch scratch) {
+        MeshBuilder builder = scratch.builder;
+        MeshBuilder.Face[] faceValues = MeshBuilder.Face.values();
+        int faces = 0;
         for (int x = 0; x < SIZE; x++) {
-            for (int y = 0; y < SIZE; y++) {
-                for (int z = 0; z < SIZE; z++) {
-                    byte id = vox[x][y][z];
+            for (int z = 0; z < SIZE; z++) {
+                for (int y = 0; y < SIZE; y++) {
+                    byte id = scratch.halo[haloIndex(x, y, z)];
                     if (id == VoxelPalette.AIR_ID) continue;
-                    if (!palette.get(id).isSolid()) continue;
-                    MeshBuilder builder = builders.get(id);
-                    int wx = chunkX * SIZE + x;
-                    int wy = chunkY * SIZE + y;
-                    int wz = chunkZ * SIZE + z;
-                    // Only add faces if neighbor is air or out of bounds
-                    if (!isSolid(wx+1,wy,wz,palette)) builder.addVoxelFace(wx,wy,wz, MeshBuilder.Face.PX);
-                    if (!isSolid(wx-1,wy,wz,palette)) builder.addVoxelFace(wx,wy,wz, MeshBuilder.Face.NX);
-                    if (!isSolid(wx,wy+1,wz,palette)) builder.addVoxelFace(wx,wy,wz, MeshBuilder.Face.PY);
-                    if (!isSolid(wx,wy-1,wz,palette)) builder.addVoxelFace(wx,wy,wz, MeshBuilder.Face.NY);
-                    if (!isSolid(wx,wy,wz+1,palette)) builder.addVoxelFace(wx,wy,wz, MeshBuilder.Face.PZ);
-                    if (!isSolid(wx,wy,wz-1,palette)) builder.addVoxelFace(wx,wy,wz, MeshBuilder.Face.NZ);
-                    if (!firstBlockPos.containsKey(id)) firstBlockPos.put(id, new Vec3(wx, wy, wz));
+                    if (!scratch.solid[id & 0xFF]) continue;
+                    int layer = id & 0xFF;
+                    // Only add faces if neighbor is not solid
+                    for (int f = 0; f < 6; f++) {
+                        if (isFaceExposed(scratch, x, y, z, f)) {
+                            builder.addVoxelFace(x, y, z, faceValues[f], layer);
+                            scratch.used[layer] = true;
+                            faces++;
+                        }
+                    }
                 }
             }
         }
-        int geomCount = 0;
-        for (Map.Entry<Byte, MeshBuilder> entry : builders.entrySet()) {
-            MeshBuilder meshBuilder = entry.getValue();
-            Mesh mesh = meshBuilder.build();
-            if (mesh.getTriangleCount() > 0) {
-                byte id = entry.getKey();
-                Geometry g = new Geometry("chunk_"+chunkX+"_"+chunkY+"_"+chunkZ+"_"+id, mesh);
-                Vec3 blockPos = firstBlockPos.getOrDefault(id, new Vec3(chunkX*SIZE, chunkY*SIZE, chunkZ*SIZE));
-                Material mat = palette.get(id).getMaterial(assetManager, blockPos);
-                g.setMaterial(mat);
-                node.attachChild(g);
-                geomCount++;
+        return faces;
+    }
+
+    /**
+     * Greedy meshing: for every face direction and every slice along its normal, builds a 2D mask
+     * of exposed faces and merges runs of the same block type into maximal rectangles.
+     * Returns the number of exposed voxel faces (what the naive mesher would emit).
+     */
+    private int buildGreedyFaces(MeshScratch scratch) {
+        MeshBuilder builder = scratch.builder;
+        int faces = 0;
+        byte[] mask = scratch.mask;
+        int[] pos = scratch.pos;
+        int[] size = scratch.size;
+        for (MeshBuilder.Face face : MeshBuilder.Face.values()) {
+            int f = face.ordinal();
+            int d = f / 2;                        // normal axis: 0=x, 1=y, 2=z
+            int u = (d + 1) % 3, v = (d + 2) % 3; // tangent axes
+            for (int s = 0; s < SIZE; s++) {
+                // Build the mask of exposed faces for this slice
+                pos[d] = s;
+                for (int j = 0; j < SIZE; j++) {
+                    pos[v] = j;
+                    for (int i = 0; i < SIZE; i++) {
+                        pos[u] = i;
+                        byte id = scratch.halo[haloIndex(pos[0], pos[1], pos[2])];
+                        byte m = VoxelPalette.AIR_ID;
+                        if (id != VoxelPalette.AIR_ID && scratch.solid[id & 0xFF]
+                                && isFaceExposed(scratch, pos[0], pos[1], pos[2], f)) {
+                            m = id;
+                            scratch.used[id & 0xFF] = true;
+                            faces++;
+                        }
+                        mask[i + j * SIZE] = m;
+                    }
+                }
+                // Merge the mask into maximal rectangles
+                for (int j = 0; j < SIZE; j++) {
+                    for (int i = 0; i < SIZE; ) {
+                        byte id = mask[i + j * SIZE];
+                        if (id == VoxelPalette.AIR_ID) { i++; continue; }
+                        int w = 1;
+                        while (i + w < SIZE && mask[i + w + j * SIZE] == id) w++;
+                        int h = 1;
+                        grow:
+                        while (j + h < SIZE) {
+                            for (int k = 0; k < w; k++) {
+                                if (mask[i + k + (j + h) * SIZE] != id) break grow;
+                            }
+                            h++;
+                        }
+                        pos[u] = i; pos[v] = j;
+                        size[d] = 1; size[u] = w; size[v] = h;
+                        builder.addVoxelFace(pos[0], pos[1], pos[2], size[0], size[1], size[2], face, id & 0xFF);
+                        for (int l = 0; l < h; l++) {
+                            for (int k = 0; k < w; k++) mask[i + k + (j + l) * SIZE] = VoxelPalette.AIR_ID;
+                        }
+                        i += w;
+                    }
+                }
             }
         }
-        long end = System.nanoTime();
-        System.out.println("Chunk ["+chunkX+","+chunkY+","+chunkZ+"] mesh built in " + ((end-start)/1_000_000.0) + " ms, geometries: " + geomCount);
+        return faces;
     }
 
     /**
-     * Updates the physics control for this chunk. Call after mesh rebuild.
+     * Merges the solid voxels of the snapshot into axis-aligned boxes for collision: a run along y
+     * is grown along z, then along x, while every voxel it would take is solid and not yet covered.
      */
-    public void updatePhysics(PhysicsSpace space) {
-        if (rigidBody != null) {
-            System.out.println("Removing old RigidBodyControl for chunk ["+chunkX+","+chunkY+","+chunkZ+"]");
-            space.remove(rigidBody);
-            node.removeControl(rigidBody);
-            rigidBody = null;
-        }
-        if (node.getQuantity() > 0) { // Only add if chunk has geometry
-            // Ensure node is attached to a parent (world node)
-            if (node.getParent() == null) {
-                System.out.println("Warning: Chunk node ["+chunkX+","+chunkY+","+chunkZ+"] not attached to world node before physics update!");
+    private static int[] buildCollisionBoxes(MeshScratch scratch) {
+        boolean[] boxed = scratch.boxed;
+        java.util.Arrays.fill(boxed, false);
+        int count = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int y = 0; y < SIZE; y++) {
+                    if (!isUnboxedSolid(scratch, x, y, z, 1, 1, 1)) continue;
+                    int sy = 1, sz = 1, sx = 1;
+                    while (y + sy < SIZE && isUnboxedSolid(scratch, x, y + sy, z, 1, 1, 1)) sy++;
+                    while (z + sz < SIZE && isUnboxedSolid(scratch, x, y, z + sz, 1, sy, 1)) sz++;
+                    while (x + sx < SIZE && isUnboxedSolid(scratch, x + sx, y, z, 1, sy, sz)) sx++;
+                    for (int i = 0; i < sx; i++)
+                        for (int k = 0; k < sz; k++)
+                            for (int j = 0; j < sy; j++) boxed[index(x + i, y + j, z + k)] = true;
+                    scratch.boxes[count++] = ChunkCollision.packBox(x, y, z, sx, sy, sz);
+                }
             }
-            // Clone meshes for collision shape to avoid Bullet caching issues
-            Node tempNode = node.clone(false); // shallow clone
-            for (int i = 0; i < node.getQuantity(); i++) {
-                if (node.getChild(i) instanceof Geometry) {
-                    Geometry g = (Geometry) node.getChild(i);
-                    Geometry gClone = g.clone(false);
-                    gClone.setMesh(g.getMesh().deepClone());
-                    tempNode.attachChild(gClone);
+        }
+        return java.util.Arrays.copyOf(scratch.boxes, count);
+    }
+
+    private static boolean isUnboxedSolid(MeshScratch scratch, int x, int y, int z, int sx, int sy, int sz) {
+        for (int i = 0; i < sx; i++) {
+            for (int k = 0; k < sz; k++) {
+                for (int j = 0; j < sy; j++) {
+                    if (scratch.boxed[index(x + i, y + j, z + k)]) return false;
+                    if (!scratch.solid[scratch.halo[haloIndex(x + i, y + j, z + k)] & 0xFF]) return false;
                 }
             }
-            CollisionShape shape = CollisionShapeFactory.createMeshShape(tempNode);
-            rigidBody = new RigidBodyControl(shape, 0f);
-            node.addControl(rigidBody);
+        }
+        return true;
+    }
+
+    /** Triangles emitted by the last mesh build. */
+    public int getTriangleCount() { return triangleCount; }
+
+    /** Triangles the naive mesher would emit for the same voxels (one quad per exposed face). */
+    public int getNaiveTriangleCount() { return naiveTriangleCount; }
+
+    /** Border faces skipped in the last mesh build because the neighbouring chunk's voxel is solid. */
+    public int getCulledFaceCount() { return culledFaceCount; }
+
+    /** Draw calls this chunk costs: 1 if it has any visible face, else 0. */
+    public int getDrawCalls() { return drawCalls; }
+
+    /** Draw calls this chunk would cost with one geometry and material per block type. */
+    public int getPerTypeDrawCalls() { return perTypeDrawCalls; }
+
+    /** GPU bytes of this chunk's packed mesh (vertices plus indices). */
+    public int getMeshBytes() { return meshBytes; }
+
+    /** GPU bytes the same mesh would take in the float position/normal/uv format with int indices. */
+    public int getFloatMeshBytes() { return floatMeshBytes; }
+
+    /**
+     * Brings this chunk's static body in line with the collision boxes of the last applied mesh.
+     * The shape is assembled from boxes the mesh worker already merged, and an existing body gets
+     * the new shape in place, so it never leaves the physics space. Returns true if the body changed.
+     */
+    public boolean updatePhysics(PhysicsSpace space, ChunkCollision collision) {
+        if (rigidBody != null && java.util.Arrays.equals(bodyBoxes, collisionBoxes)) return false;
+        CollisionShape shape = collision.buildShape(collisionBoxes);
+        if (shape == null) return removePhysics(space);
+        if (rigidBody == null) {
+            rigidBody = new PhysicsRigidBody(shape, PhysicsRigidBody.massForStatic);
+            rigidBody.setPhysicsLocation(new Vector3f(chunkX * SIZE, chunkY * SIZE, chunkZ * SIZE));
             space.add(rigidBody);
-            System.out.println("Added new RigidBodyControl for chunk ["+chunkX+","+chunkY+","+chunkZ+"]");
+        } else {
+            rigidBody.setCollisionShape(shape);
+        }
+        bodyBoxes = collisionBoxes;
+        return true;
+    }
+
+    /**
+     * Takes this chunk's body out of the physics space. The collision boxes are kept, so a later
+     * {@link #updatePhysics} restores the body without remeshing. Returns true if there was a body.
+     */
+    public boolean removePhysics(PhysicsSpace space) {
+        if (rigidBody == null) return false;
+        space.remove(rigidBody);
+        rigidBody = null;
+        bodyBoxes = null;
+        return true;
+    }
+
+    /** Chunk meshing strategy. */
+    public enum MeshingMode {
+        /** One quad per exposed voxel face. */
+        NAIVE,
+        /** Coplanar faces of the same block type merged into maximal rectangles. */
+        GREEDY
+    }
+
+    /** Result of meshing a chunk snapshot: vertex arrays for the whole chunk, ready to upload on the render thread. */
+    public static final class MeshData {
+        final MeshingMode mode;
+        MeshBuilder.MeshArrays arrays; // null when the chunk has no visible faces
+        int[] collisionBoxes = new int[0]; // merged solid voxels, see ChunkCollision.packBox
+        int blockTypes; // visible block types, i.e. draw calls with one material per type
+        int exposedFaces;
+        int culledFaces;
+        long meshNanos;
+
+        MeshData(MeshingMode mode) {
+            this.mode = mode;
         }
     }
 
-    // Helper for solid check in world coordinates
-    private boolean isSolid(int wx, int wy, int wz, VoxelPalette palette) {
-        if (wx < 0 || wy < 0 || wz < 0) return false;
-        int max = SIZE * 1000; // arbitrary large world limit
-        if (wx >= max || wy >= max || wz >= max) return false;
-        int cx = wx / SIZE, cy = wy / SIZE, cz = wz / SIZE;
-        int lx = wx % SIZE, ly = wy % SIZE, lz = wz % SIZE;
-        if (cx != chunkX || cy != chunkY || cz != chunkZ) return false; // only check within this chunk
-        if (lx < 0 || ly < 0 || lz < 0 || lx >= SIZE || ly >= SIZE || lz >= SIZE) return false;
-        byte id = vox[lx][ly][lz];
-        return id != VoxelPalette.AIR_ID && palette.get(id).isSolid();
+    private static final class MeshScratch {
+        final MeshBuilder builder = new MeshBuilder();
+        final boolean[] used = new boolean[256];
+
+        MeshScratch() {
+            // Rotate/flip UVs per block to break up visible texture repetition
+            builder.setRandomizeUV(true);
+        }
+
+        byte[] halo; // snapshot being meshed
+        final boolean[] solid = new boolean[256];
+        final byte[] mask = new byte[SIZE * SIZE];
+        int culledFaces;
+        final int[] pos = new int[3];
+        final int[] size = new int[3];
+        final boolean[] boxed = new boolean[VOLUME]; // voxels already covered by a collision box
+        final int[] boxes = new int[VOLUME];
     }
 }
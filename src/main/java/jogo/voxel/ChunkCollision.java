@@ -0,0 +1,51 @@
+package jogo.voxel;
+
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.collision.shapes.CollisionShape;
+import com.jme3.bullet.collision.shapes.CompoundCollisionShape;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collision shapes for chunk bodies, built straight from voxel data instead of the render mesh.
+ * Mesh workers merge a chunk's solid voxels into axis-aligned boxes (see {@link #packBox}); on the
+ * render thread the boxes become one compound shape whose children are shared box shapes, one per
+ * box size, so rebuilding a chunk's shape allocates no new box shapes and no triangle hierarchy.
+ */
+public class ChunkCollision {
+    private final Map<Integer, BoxCollisionShape> boxShapes = new HashMap<>();
+
+    /**
+     * Packs a chunk-local box into one int: 4 bits each for x, y, z and for the sizes minus one.
+     * Sizes run from 1 to {@link Chunk#SIZE}.
+     */
+    static int packBox(int x, int y, int z, int sx, int sy, int sz) {
+        return x | (y << 4) | (z << 8) | ((sx - 1) << 12) | ((sy - 1) << 16) | ((sz - 1) << 20);
+    }
+
+    /**
+     * Builds the compound shape for a chunk from its packed boxes, in chunk-local coordinates.
+     * Must run on the render thread. Returns null when there are no boxes.
+     */
+    public CollisionShape buildShape(int[] boxes) {
+        if (boxes == null || boxes.length == 0) return null;
+        CompoundCollisionShape shape = new CompoundCollisionShape(boxes.length);
+        for (int box : boxes) {
+            int sx = ((box >>> 12) & 15) + 1, sy = ((box >>> 16) & 15) + 1, sz = ((box >>> 20) & 15) + 1;
+            shape.addChildShape(boxShape(box >>> 12, sx, sy, sz),
+                    (box & 15) + sx * 0.5f, ((box >>> 4) & 15) + sy * 0.5f, ((box >>> 8) & 15) + sz * 0.5f);
+        }
+        return shape;
+    }
+
+    // Shared box for one size; the key is the packed size bits
+    private BoxCollisionShape boxShape(int key, int sx, int sy, int sz) {
+        return boxShapes.computeIfAbsent(key, k -> new BoxCollisionShape(sx * 0.5f, sy * 0.5f, sz * 0.5f));
+    }
+
+    /** Number of distinct box shapes created so far. */
+    public int getSharedBoxCount() {
+        return boxShapes.size();
+    }
+}
@@ -0,0 +1,418 @@
+package jogo.voxel;
+
+import com.jme3.bullet.PhysicsSpace;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The loaded part of an unbounded world. Chunks are kept by packed chunk coordinates and handled
+ * a chunk column (every layer of one (cx,cz)) at a time: columns within the view distance of the
+ * centre (the player) are streamed in, columns beyond the unload distance are dropped.
+ * <p>
+ * Missing columns wait in a queue ordered by distance to the centre. A few at a time are read
+ * from the region files, on the storage's I/O thread so a read always sees the writes queued
+ * before it, and generated on the generation pool where nothing was saved. Finished columns are
+ * inserted on the world's thread, a few per frame. A column is meshed, through the world's
+ * dirty-chunk queue, once its four neighbours are loaded too, so its border faces are culled on
+ * the first try; the visible radius is therefore one column less than the view distance. A column
+ * that was meshed without a neighbour (at the edge of the start-up build, or after the neighbour
+ * was dropped) is queued again when that neighbour arrives.
+ * Chunks with unsaved edits are written to their region files when their column is dropped.
+ * <p>
+ * Everything except the loading jobs runs on the thread that owns the world.
+ */
+final class ChunkManager {
+    private static final int GEN_THREADS = Integer.getInteger("jogo.worldgen.threads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    // Columns requested but not inserted yet: enough to keep the pool busy, few enough to re-prioritise quickly
+    private static final int MAX_IN_FLIGHT = GEN_THREADS * 2 + 2;
+    private static final int INSERTS_PER_FRAME = 4;
+    static final int DEFAULT_VIEW_DISTANCE = 8;
+    // Four horizontal neighbours of a column
+    private static final int[][] SIDES = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    private final VoxelWorld world;
+    private final Heightmap heightmap;
+    private final int countY;
+    private final LongObjectMap<Chunk> chunks = new LongObjectMap<>();
+    private final LongObjectMap<Column> columns = new LongObjectMap<>();
+    // Insertion order is request order, i.e. nearest first at the time of the request
+    private final Map<Long, CompletableFuture<Column>> inFlight = new LinkedHashMap<>();
+    private final PriorityQueue<Request> queue = new PriorityQueue<>();
+    private final ExecutorService genPool = Executors.newFixedThreadPool(GEN_THREADS, new GenThreadFactory());
+    private TerrainGenerator generator;
+    private WorldStorage storage;
+
+    private int viewDistance = DEFAULT_VIEW_DISTANCE;
+    private int unloadDistance = DEFAULT_VIEW_DISTANCE + 2;
+    private int centerX, centerZ;
+    private boolean centered;
+    // Bounds of the loaded columns, in chunk coordinates, inclusive; empty when minX > maxX
+    private int minX = 1, maxX = 0, minZ = 1, maxZ = 0;
+
+    private long generatedColumns, readColumns;
+
+    /** A loaded chunk column and whether it has been handed to the mesher. */
+    static final class Column {
+        final int cx, cz;
+        final Chunk[] chunks;
+        final Heightmap.Column heights;
+        final int savedChunks; // chunks read from disk rather than generated
+        boolean meshed;
+
+        Column(int cx, int cz, Chunk[] chunks, Heightmap.Column heights, int savedChunks) {
+            this.cx = cx;
+            this.cz = cz;
+            this.chunks = chunks;
+            this.heights = heights;
+            this.savedChunks = savedChunks;
+        }
+    }
+
+    /** A column waiting to be loaded, ordered by squared distance to the centre. */
+    private static final class Request implements Comparable<Request> {
+        final int cx, cz, distance;
+
+        Request(int cx, int cz, int distance) {
+            this.cx = cx;
+            this.cz = cz;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Request o) {
+            return Integer.compare(distance, o.distance);
+        }
+    }
+
+    ChunkManager(VoxelWorld world, Heightmap heightmap, int countY, TerrainGenerator generator) {
+        this.world = world;
+        this.heightmap = heightmap;
+        this.countY = countY;
+        this.generator = generator;
+    }
+
+    /** Packs chunk coordinates into a map key: 28 bits of x, 28 bits of z and 8 bits of y. */
+    static long key(int cx, int cy, int cz) {
+        return ((long) cx << 36) | (((long) cz & 0xFFFFFFFL) << 8) | (cy & 0xFF);
+    }
+
+    /** Key of chunk column (cx,cz), the key of its bottom chunk. */
+    static long columnKey(int cx, int cz) {
+        return key(cx, 0, cz);
+    }
+
+    /** Chunk at chunk coordinates (cx,cy,cz), or null if it is not loaded. */
+    Chunk get(int cx, int cy, int cz) {
+        if (cy < 0 || cy >= countY) return null;
+        return chunks.get(key(cx, cy, cz));
+    }
+
+    Collection<Chunk> loaded() {
+        return chunks.values();
+    }
+
+    int getLoadedColumnCount() {
+        return columns.size();
+    }
+
+    /** Columns waiting to be loaded or being loaded. */
+    int getPendingColumnCount() {
+        return queue.size() + inFlight.size();
+    }
+
+    long getGeneratedColumns() { return generatedColumns; }
+    long getReadColumns() { return readColumns; }
+
+    boolean isEmpty() { return columns.isEmpty(); }
+    int minX() { return minX; }
+    int maxX() { return maxX; }
+    int minZ() { return minZ; }
+    int maxZ() { return maxZ; }
+
+    void setGenerator(TerrainGenerator generator) {
+        this.generator = generator;
+    }
+
+    void setStorage(WorldStorage storage) {
+        this.storage = storage;
+    }
+
+    int getViewDistance() {
+        return viewDistance;
+    }
+
+    /** View distance in columns; columns are dropped two columns further out. */
+    void setViewDistance(int viewDistance) {
+        this.viewDistance = Math.max(1, viewDistance);
+        this.unloadDistance = this.viewDistance + 2;
+        centered = false; // re-evaluate on the next update
+    }
+
+    /**
+     * Streams columns around the block position (x,z): re-prioritises and drops columns when the
+     * centre changes column, inserts finished columns and requests more. Call once per frame.
+     */
+    void update(float x, float z, PhysicsSpace space) {
+        int cx = Math.floorDiv((int) Math.floor(x), Chunk.SIZE);
+        int cz = Math.floorDiv((int) Math.floor(z), Chunk.SIZE);
+        if (!centered || cx != centerX || cz != centerZ) recenter(cx, cz, space);
+        insertFinished(INSERTS_PER_FRAME);
+        requestQueued();
+    }
+
+    /**
+     * Loads every column within radius columns of the block position (x,z) and waits for them,
+     * e.g. around the spawn point before the first frame. Streaming continues from there.
+     * @return Number of columns loaded by this call.
+     */
+    int loadArea(float x, float z, int radius) {
+        int cx = Math.floorDiv((int) Math.floor(x), Chunk.SIZE);
+        int cz = Math.floorDiv((int) Math.floor(z), Chunk.SIZE);
+        List<CompletableFuture<Column>> jobs = new ArrayList<>();
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                if (dx * dx + dz * dz > radius * radius) continue;
+                long key = columnKey(cx + dx, cz + dz);
+                if (columns.containsKey(key)) continue;
+                CompletableFuture<Column> job = inFlight.remove(key);
+                jobs.add(job != null ? job : request(cx + dx, cz + dz));
+            }
+        }
+        int loaded = 0;
+        for (CompletableFuture<Column> job : jobs) {
+            Column column = await(job);
+            if (column != null && !columns.containsKey(columnKey(column.cx, column.cz))) {
+                insert(column);
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    // Drops columns that fell out of range, cancels their requests and rebuilds the load queue
+    private void recenter(int cx, int cz, PhysicsSpace space) {
+        centerX = cx;
+        centerZ = cz;
+        centered = true;
+        int unload2 = unloadDistance * unloadDistance;
+        List<Column> dropped = new ArrayList<>();
+        for (Column column : columns.values()) {
+            if (distance2(column.cx, column.cz) > unload2) dropped.add(column);
+        }
+        for (Column column : dropped) unload(column, space);
+        if (!dropped.isEmpty()) recomputeBounds();
+        for (Iterator<Map.Entry<Long, CompletableFuture<Column>>> it = inFlight.entrySet().iterator(); it.hasNext(); ) {
+            long key = it.next().getKey();
+            int kx = (int) (key >> 36), kz = (int) (key << 28 >> 36);
+            if (distance2(kx, kz) > unload2) {
+                it.remove(); // the job runs to completion but its column is discarded
+            }
+        }
+        queue.clear();
+        int view2 = viewDistance * viewDistance;
+        for (int dx = -viewDistance; dx <= viewDistance; dx++) {
+            for (int dz = -viewDistance; dz <= viewDistance; dz++) {
+                int d2 = dx * dx + dz * dz;
+                if (d2 > view2) continue;
+                long key = columnKey(cx + dx, cz + dz);
+                if (columns.containsKey(key) || inFlight.containsKey(key)) continue;
+                queue.add(new Request(cx + dx, cz + dz, d2));
+            }
+        }
+        if (!dropped.isEmpty()) {
+            System.out.println("Chunk columns unloaded: " + dropped.size() + ", loaded: " + columns.size() + ", queued: " + queue.size());
+        }
+    }
+
+    private void requestQueued() {
+        while (inFlight.size() < MAX_IN_FLIGHT && !queue.isEmpty()) {
+            Request r = queue.poll();
+            long key = columnKey(r.cx, r.cz);
+            if (columns.containsKey(key) || inFlight.containsKey(key)) continue;
+            inFlight.put(key, request(r.cx, r.cz));
+        }
+    }
+
+    private void insertFinished(int limit) {
+        int inserted = 0;
+        for (Iterator<CompletableFuture<Column>> it = inFlight.values().iterator(); it.hasNext() && inserted < limit; ) {
+            CompletableFuture<Column> job = it.next();
+            if (!job.isDone()) continue;
+            it.remove();
+            Column column = await(job);
+            if (column == null) continue;
+            insert(column);
+            inserted++;
+        }
+    }
+
+    // Reads the column's saved chunks on the I/O thread, then builds the column on the generation pool
+    private CompletableFuture<Column> request(int cx, int cz) {
+        TerrainGenerator gen = generator;
+        WorldStorage st = storage;
+        CompletableFuture<WorldStorage.SavedChunk[]> saved = st != null ? st.readColumn(cx, cz, countY) : CompletableFuture.completedFuture(null);
+        return saved.thenApplyAsync(voxels -> build(gen, cx, cz, voxels), genPool);
+    }
+
+    private Column build(TerrainGenerator gen, int cx, int cz, WorldStorage.SavedChunk[] saved) {
+        int savedChunks = 0;
+        if (saved != null) {
+            for (WorldStorage.SavedChunk chunk : saved) if (chunk != null) savedChunks++;
+        }
+        Chunk[] column;
+        if (savedChunks == countY) {
+            column = new Chunk[countY];
+            for (int cy = 0; cy < countY; cy++) column[cy] = new Chunk(cx, cy, cz, world.getPalette());
+        } else {
+            column = gen.generateColumn(cx, cz);
+        }
+        for (int cy = 0; cy < countY && savedChunks > 0; cy++) {
+            if (saved[cy] == null) continue;
+            column[cy].loadVoxels(saved[cy].voxels);
+            try {
+                column[cy].loadBlockEntities(saved[cy].blockEntities);
+            } catch (IOException e) {
+                System.err.println("Erro ao ler os block entities do chunk " + cx + "," + cy + "," + cz + ": " + e.getMessage());
+            }
+            if (saved[cy].unsaved) column[cy].markUnsaved();
+        }
+        return new Column(cx, cz, column, heightmap.compute(column), savedChunks);
+    }
+
+    private Column await(CompletableFuture<Column> job) {
+        try {
+            return job.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("Chunk column failed to load: " + e.getCause());
+            return null;
+        }
+    }
+
+    private void insert(Column column) {
+        columns.put(columnKey(column.cx, column.cz), column);
+        for (Chunk chunk : column.chunks) {
+            chunks.put(key(chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ()), chunk);
+            world.attachChunk(chunk);
+        }
+        heightmap.put(column.cx, column.cz, column.heights);
+        if (column.savedChunks > 0) readColumns++;
+        else generatedColumns++;
+        if (minX > maxX) {
+            minX = maxX = column.cx;
+            minZ = maxZ = column.cz;
+        } else {
+            minX = Math.min(minX, column.cx);
+            maxX = Math.max(maxX, column.cx);
+            minZ = Math.min(minZ, column.cz);
+            maxZ = Math.max(maxZ, column.cz);
+        }
+        // This column, or a neighbour waiting only for it, may now have all four sides loaded;
+        // a neighbour meshed without it has faces toward it that must now be culled
+        meshIfSurrounded(column);
+        for (int[] side : SIDES) {
+            Column n = columns.get(columnKey(column.cx + side[0], column.cz + side[1]));
+            if (n == null) continue;
+            if (n.meshed) remeshBorder(n, column);
+            else meshIfSurrounded(n);
+        }
+    }
+
+    // Queues the chunks of a meshed column that touch a chunk of the column just inserted beside it
+    private void remeshBorder(Column meshed, Column inserted) {
+        for (Chunk chunk : meshed.chunks) {
+            if (chunks.containsKey(key(inserted.cx, chunk.getChunkY(), inserted.cz))) world.markChunkDirty(chunk);
+        }
+    }
+
+    private void meshIfSurrounded(Column column) {
+        if (column.meshed) return;
+        for (int[] side : SIDES) {
+            if (!columns.containsKey(columnKey(column.cx + side[0], column.cz + side[1]))) return;
+        }
+        column.meshed = true;
+        for (Chunk chunk : column.chunks) world.markChunkDirty(chunk);
+    }
+
+    /**
+     * Marks every loaded column as meshed, after the world built all meshes at once (start-up):
+     * columns at the edge of the loaded area are then not queued again when their neighbours arrive.
+     */
+    void markAllMeshed() {
+        for (Column column : columns.values()) column.meshed = true;
+    }
+
+    private void unload(Column column, PhysicsSpace space) {
+        columns.remove(columnKey(column.cx, column.cz));
+        heightmap.remove(column.cx, column.cz);
+        List<Chunk> unsaved = new ArrayList<>();
+        for (Chunk chunk : column.chunks) {
+            chunks.remove(key(chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ()));
+            world.detachChunk(chunk, space);
+            if (chunk.isUnsaved()) unsaved.add(chunk);
+        }
+        if (!unsaved.isEmpty()) {
+            if (storage != null) storage.writeUnloaded(world, unsaved);
+            else System.out.println("No world storage: edits to " + unsaved.size() + " unloaded chunks are lost");
+        }
+    }
+
+    private void recomputeBounds() {
+        minX = minZ = 1;
+        maxX = maxZ = 0;
+        boolean first = true;
+        for (Column column : columns.values()) {
+            if (first) {
+                minX = maxX = column.cx;
+                minZ = maxZ = column.cz;
+                first = false;
+            } else {
+                minX = Math.min(minX, column.cx);
+                maxX = Math.max(maxX, column.cx);
+                minZ = Math.min(minZ, column.cz);
+                maxZ = Math.max(maxZ, column.cz);
+            }
+        }
+    }
+
+    private int distance2(int cx, int cz) {
+        int dx = cx - centerX, dz = cz - centerZ;
+        return dx * dx + dz * dz;
+    }
+
+    /** Stops the generation pool. Columns still loading are discarded. */
+    void shutdown() {
+        genPool.shutdownNow();
+        inFlight.clear();
+        queue.clear();
+    }
+
+    private static final class GenThreadFactory implements java.util.concurrent.ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "chunk-gen-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
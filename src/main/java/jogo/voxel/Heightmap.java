@@ -0,0 +1,134 @@
+package jogo.voxel;
+
+import java.util.Arrays;
+
+/**
+ * Highest solid and highest non-air voxel of every loaded world column, kept up to date by the
+ * world's write paths ({@link VoxelWorld#setBlock}, {@link WorldWriter}) so surface queries are
+ * O(1). Heights are stored per chunk column and come and go with the chunks; a column with no
+ * such voxel, or not loaded, reports -1.
+ */
+public class Heightmap {
+    private final int sizeY;
+    private final boolean[] solid = new boolean[256];
+    private final LongObjectMap<Column> columns = new LongObjectMap<>();
+
+    /** Heights of the 16x16 voxel columns of one chunk column, indexed x * SIZE + z. */
+    static final class Column {
+        final short[] topSolid = new short[Chunk.SIZE * Chunk.SIZE];
+        final short[] topNonAir = new short[Chunk.SIZE * Chunk.SIZE];
+    }
+
+    Heightmap(int sizeY, VoxelPalette palette) {
+        this.sizeY = sizeY;
+        for (int i = 0; i < palette.size(); i++) solid[i] = palette.get((byte) i).isSolid();
+    }
+
+    /** Y of the highest solid voxel in column (x,z), or -1 if none or not loaded. */
+    public int getTopSolidY(int x, int z) {
+        Column c = column(x, z);
+        return c == null ? -1 : c.topSolid[local(x, z)];
+    }
+
+    /** Y of the highest non-air voxel in column (x,z), or -1 if none or not loaded. */
+    public int getTopNonAirY(int x, int z) {
+        Column c = column(x, z);
+        return c == null ? -1 : c.topNonAir[local(x, z)];
+    }
+
+    /**
+     * Records that voxels y0..y1 of column (x,z) were all set to id. Only when the current top is
+     * cleared does the column get scanned, downwards from y0, for the next one.
+     */
+    void update(VoxelWorld world, int x, int z, int y0, int y1, byte id) {
+        Column c = column(x, z);
+        if (c == null) return;
+        int i = local(x, z);
+        if (id != VoxelPalette.AIR_ID) {
+            if (y1 > c.topNonAir[i]) c.topNonAir[i] = (short) y1;
+        } else if (c.topNonAir[i] >= y0 && c.topNonAir[i] <= y1) {
+            c.topNonAir[i] = (short) scanDown(world, x, z, y0 - 1, false);
+        }
+        if (solid[id & 0xFF]) {
+            if (y1 > c.topSolid[i]) c.topSolid[i] = (short) y1;
+        } else if (c.topSolid[i] >= y0 && c.topSolid[i] <= y1) {
+            c.topSolid[i] = (short) scanDown(world, x, z, y0 - 1, true);
+        }
+    }
+
+    /** Recomputes column (x,z) from its full contents, bottom to top. */
+    void recompute(int x, int z, byte[] column) {
+        Column c = column(x, z);
+        if (c != null) recompute(c, local(x, z), column);
+    }
+
+    /**
+     * Computes the heights of a chunk column from its chunks, bottom layer first. Reads only the
+     * given chunks, so it may run on the thread that loaded or generated them.
+     */
+    Column compute(Chunk[] chunks) {
+        Column c = new Column();
+        byte[] column = new byte[chunks.length << Chunk.SHIFT];
+        for (int lx = 0; lx < Chunk.SIZE; lx++) {
+            for (int lz = 0; lz < Chunk.SIZE; lz++) {
+                for (int cy = 0; cy < chunks.length; cy++) chunks[cy].getColumn(lx, lz, column, cy << Chunk.SHIFT);
+                recompute(c, lx * Chunk.SIZE + lz, column);
+            }
+        }
+        return c;
+    }
+
+    /** Makes the heights of chunk column (cx,cz) available, when its chunks are loaded. */
+    void put(int cx, int cz, Column column) {
+        columns.put(ChunkManager.columnKey(cx, cz), column);
+    }
+
+    /** Drops the heights of chunk column (cx,cz), when its chunks are unloaded. */
+    void remove(int cx, int cz) {
+        columns.remove(ChunkManager.columnKey(cx, cz));
+    }
+
+    /**
+     * Copies the heights of the 16x16 columns of chunk column (cx,cz) into dst, indexed
+     * x * SIZE + z like {@link Chunk#getSlice}. A column that is not loaded gives -1 everywhere.
+     */
+    void copyChunkColumn(int cx, int cz, int[] dst, boolean solidOnly) {
+        Column c = columns.get(ChunkManager.columnKey(cx, cz));
+        if (c == null) {
+            Arrays.fill(dst, 0, Chunk.SIZE * Chunk.SIZE, -1);
+            return;
+        }
+        short[] src = solidOnly ? c.topSolid : c.topNonAir;
+        for (int i = 0; i < Chunk.SIZE * Chunk.SIZE; i++) dst[i] = src[i];
+    }
+
+    private Column column(int x, int z) {
+        return columns.get(ChunkManager.columnKey(x >> Chunk.SHIFT, z >> Chunk.SHIFT));
+    }
+
+    private static int local(int x, int z) {
+        return (x & Chunk.MASK) * Chunk.SIZE + (z & Chunk.MASK);
+    }
+
+    private void recompute(Column c, int i, byte[] column) {
+        c.topSolid[i] = -1;
+        c.topNonAir[i] = -1;
+        for (int y = Math.min(sizeY, column.length) - 1; y >= 0; y--) {
+            byte id = column[y];
+            if (id == VoxelPalette.AIR_ID) continue;
+            if (c.topNonAir[i] < 0) c.topNonAir[i] = (short) y;
+            if (solid[id & 0xFF]) {
+                c.topSolid[i] = (short) y;
+                return;
+            }
+        }
+    }
+
+    private int scanDown(VoxelWorld world, int x, int z, int fromY, boolean solidOnly) {
+        for (int y = fromY; y >= 0; y--) {
+            byte id = world.getBlock(x, y, z);
+            if (solidOnly ? solid[id & 0xFF] : id != VoxelPalette.AIR_ID) return y;
+        }
+        return -1;
+    }
+}
@@ -1,130 +1,176 @@
 package jogo.voxel;
 
-import com.jme3.math.Vector2f;
+import com.jme3.bounding.BoundingBox;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
 
+/**
+ * Accumulates voxel faces into growable primitive arrays, in a packed vertex format of 8 bytes:
+ * Position is 4 unsigned bytes (chunk-local x, y, z and the face id, from which the shader derives
+ * the normal) and TexCoord is 4 unsigned bytes (u, v, texture array layer, unused). Indices are
+ * 16-bit whenever the vertex count allows. Coordinates passed in must be chunk-local (0..SIZE);
+ * the geometry is translated to the chunk origin.
+ * <p>
+ * A builder is meant to be reused: call {@link #clear()} before each chunk rebuild and the backing
+ * arrays are kept, so a rebuild only allocates the final jME vertex buffers in {@link #build()}.
+ */
 public class MeshBuilder {
-    private final List<Float> positions = new ArrayList<>();
-    private final List<Float> normals = new ArrayList<>();
-    private final List<Float> uvs = new ArrayList<>();
-    private final List<Integer> indices = new ArrayList<>();
+    private static final int INITIAL_VERTICES = 256;
+
+    /** Bytes per vertex of the packed format (position + texcoord). */
+    public static final int VERTEX_BYTES = 8;
+    /** Bytes per vertex of the unpacked float format (3 position + 3 normal + 2 uv floats). */
+    public static final int FLOAT_VERTEX_BYTES = 32;
+
+    private byte[] positions = new byte[INITIAL_VERTICES * 4];
+    private byte[] texCoords = new byte[INITIAL_VERTICES * 4];
+    private int[] indices = new int[INITIAL_VERTICES / 4 * 6];
+    private int vertexCount = 0;
+    private int indexCount = 0;
+    private int minX, minY, minZ, maxX, maxY, maxZ;
 
     // Optional: enable per-block UV randomization for variety
     private boolean randomizeUV = false;
 
+    // Corner offsets per face (0 = min, 1 = max along the axis), 4 corners x (x,y,z), CCW
+    private static final int[][] FACE_CORNERS = {
+            {1,0,0, 1,1,0, 1,1,1, 1,0,1}, // PX
+            {0,0,1, 0,1,1, 0,1,0, 0,0,0}, // NX
+            {0,1,0, 0,1,1, 1,1,1, 1,1,0}, // PY
+            {1,0,0, 1,0,1, 0,0,1, 0,0,0}, // NY
+            {0,0,1, 1,0,1, 1,1,1, 0,1,1}, // PZ
+            {1,0,0, 0,0,0, 0,1,0, 1,1,0}, // NZ
+    };
+
+    // Axes (x=0, y=1, z=2) along which U and V grow for each face, used to tile merged faces
+    private static final int[][] FACE_TILE_AXES = {
+            {2, 1}, {2, 1},
+            {0, 2}, {0, 2},
+            {1, 0}, {1, 0},
+    };
+
+    // Unit UVs per corner, matching FACE_CORNERS order
+    private static final int[] CORNER_UV = {0,0, 0,1, 1,1, 1,0};
+
+    // Unit UVs for every rotation/flip combination, indexed by (rot | flipU << 2 | flipV << 3)
+    private static final int[][] UV_VARIANTS = new int[16][8];
+
+    static {
+        for (int variant = 0; variant < 16; variant++) {
+            int rot = variant & 3;
+            boolean flipU = ((variant >>> 2) & 1) != 0;
+            boolean flipV = ((variant >>> 3) & 1) != 0;
+            for (int c = 0; c < 4; c++) {
+                transformUV(CORNER_UV[c * 2], CORNER_UV[c * 2 + 1], rot, flipU, flipV, UV_VARIANTS[variant], c * 2);
+            }
+        }
+    }
+
     public void setRandomizeUV(boolean randomizeUV) {
         this.randomizeUV = randomizeUV;
     }
 
-    public int addVertex(Vector3f p, Vector3f n, Vector2f uv) {
-        int idx = positions.size() / 3;
-        positions.add(p.x); positions.add(p.y); positions.add(p.z);
-        normals.add(n.x); normals.add(n.y); normals.add(n.z);
-        uvs.add(uv.x); uvs.add(uv.y);
-        return idx;
+    /** Discards all accumulated geometry while keeping the backing arrays for reuse. */
+    public void clear() {
+        vertexCount = 0;
+        indexCount = 0;
+        minX = minY = minZ = Integer.MAX_VALUE;
+        maxX = maxY = maxZ = Integer.MIN_VALUE;
     }
 
-    public void addQuad(Vector3f v0, Vector3f v1, Vector3f v2, Vector3f v3, Vector3f normal) {
-        int i0 = addVertex(v0, normal, new Vector2f(0,0));
-        int i1 = addVertex(v1, normal, new Vector2f(0,1));
-        int i2 = addVertex(v2, normal, new Vector2f(1,1));
-        int i3 = addVertex(v3, normal, new Vector2f(1,0));
-        // CCW triangles
-        indices.add(i0); indices.add(i1); indices.add(i2);
-        indices.add(i0); indices.add(i2); indices.add(i3);
+    public boolean isEmpty() {
+        return indexCount == 0;
     }
 
-    // Add a quad with explicit UVs
-    private void addQuadUV(Vector3f v0, Vector3f v1, Vector3f v2, Vector3f v3, Vector3f normal,
-                           Vector2f uv0, Vector2f uv1, Vector2f uv2, Vector2f uv3) {
-        int i0 = addVertex(v0, normal, uv0);
-        int i1 = addVertex(v1, normal, uv1);
-        int i2 = addVertex(v2, normal, uv2);
-        int i3 = addVertex(v3, normal, uv3);
-        indices.add(i0); indices.add(i1); indices.add(i2);
-        indices.add(i0); indices.add(i2); indices.add(i3);
+    public int getTriangleCount() {
+        return indexCount / 3;
+    }
+
+    /** Adds a vertex at chunk-local (x,y,z) in [0, 255] for the given face, with texcoords (u, v, layer). */
+    public int addVertex(int x, int y, int z, Face face, int u, int v, int layer) {
+        ensureVertexCapacity(vertexCount + 1);
+        int idx = vertexCount++;
+        int p = idx * 4;
+        positions[p] = (byte) x; positions[p + 1] = (byte) y; positions[p + 2] = (byte) z;
+        positions[p + 3] = (byte) face.ordinal();
+        texCoords[p] = (byte) u; texCoords[p + 1] = (byte) v; texCoords[p + 2] = (byte) layer;
+        minX = Math.min(minX, x); minY = Math.min(minY, y); minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x); maxY = Math.max(maxY, y); maxZ = Math.max(maxZ, z);
+        return idx;
     }
 
-    private static Vector2f transformUV(Vector2f uv, int rot, boolean flipU, boolean flipV) {
-        float u = uv.x;
-        float v = uv.y;
+    private static void transformUV(int u, int v, int rot, boolean flipU, boolean flipV, int[] out, int off) {
         // Apply flips first
-        if (flipU) u = 1f - u;
-        if (flipV) v = 1f - v;
-        // Apply rotation in 90-degree steps around center (0.5,0.5)
-        // To rotate around center, shift to origin, rotate, shift back
-        float cu = u - 0.5f;
-        float cv = v - 0.5f;
-        float ru, rv;
+        if (flipU) u = 1 - u;
+        if (flipV) v = 1 - v;
+        // Rotate in 90-degree steps around the center of the unit square
+        int ru, rv;
         switch (rot & 3) {
             case 1 -> { // 90 deg
-                ru = cv;
-                rv = -cu;
+                ru = v;
+                rv = 1 - u;
             }
             case 2 -> { // 180 deg
-                ru = -cu;
-                rv = -cv;
+                ru = 1 - u;
+                rv = 1 - v;
             }
             case 3 -> { // 270 deg
-                ru = -cv;
-                rv = cu;
+                ru = 1 - v;
+                rv = u;
             }
             default -> { // 0 deg
-                ru = cu;
-                rv = cv;
+                ru = u;
+                rv = v;
             }
         }
-        return new Vector2f(ru + 0.5f, rv + 0.5f);
+        out[off] = ru;
+        out[off + 1] = rv;
     }
 
-    public void addVoxelFace(int x, int y, int z, Face face) {
-        float xf = x, yf = y, zf = z;
+    public void addVoxelFace(int x, int y, int z, Face face, int layer) {
+        addVoxelFace(x, y, z, 1, 1, 1, face, layer);
+    }
+
+    /**
+     * Adds a face covering a merged rectangle of voxels (greedy meshing).
+     * (x,y,z) is the chunk-local min corner voxel and (sx,sy,sz) the extent along each axis; the
+     * extent along the face normal must be 1. UVs are tiled so the texture repeats once per block,
+     * which requires the texture wrap mode to be Repeat. Per-block UV randomization only
+     * applies to unit faces. layer selects the block texture in the texture array.
+     */
+    public void addVoxelFace(int x, int y, int z, int sx, int sy, int sz, Face face, int layer) {
+        int f = face.ordinal();
+        int[] corners = FACE_CORNERS[f];
 
-        int rot = 0; boolean flipU = false; boolean flipV = false;
-        if (randomizeUV) {
-            int h = hash3(x, y, z);
-            rot = (h) & 3;                 // 0,1,2,3 => 0/90/180/270 deg
-            flipU = ((h >>> 2) & 1) != 0;  // boolean
-            flipV = ((h >>> 3) & 1) != 0;  // boolean
+        int[] uv = null;
+        int tu = 1, tv = 1;
+        boolean unit = sx == 1 && sy == 1 && sz == 1;
+        if (unit && randomizeUV) {
+            // 0,1,2,3 => 0/90/180/270 deg rotation, then flipU and flipV bits
+            uv = UV_VARIANTS[hash3(x, y, z) & 15];
+        } else if (!unit) {
+            int[] axes = FACE_TILE_AXES[f];
+            tu = axes[0] == 0 ? sx : (axes[0] == 1 ? sy : sz);
+            tv = axes[1] == 0 ? sx : (axes[1] == 1 ? sy : sz);
         }
 
-        // Base UVs for a unit face
-        Vector2f uv00 = transformUV(new Vector2f(0f, 0f), rot, flipU, flipV);
-        Vector2f uv01 = transformUV(new Vector2f(0f, 1f), rot, flipU, flipV);
-        Vector2f uv11 = transformUV(new Vector2f(1f, 1f), rot, flipU, flipV);
-        Vector2f uv10 = transformUV(new Vector2f(1f, 0f), rot, flipU, flipV);
-
-        switch (face) {
-            case PX -> addQuadUV(
-                    new Vector3f(xf+1, yf,   zf  ), new Vector3f(xf+1, yf+1, zf  ), new Vector3f(xf+1, yf+1, zf+1), new Vector3f(xf+1, yf,   zf+1), FaceNormals.PX,
-                    uv00, uv01, uv11, uv10
-            );
-            case NX -> addQuadUV(
-                    new Vector3f(xf,   yf,   zf+1), new Vector3f(xf,   yf+1, zf+1), new Vector3f(xf,   yf+1, zf  ), new Vector3f(xf,   yf,   zf  ), FaceNormals.NX,
-                    uv00, uv01, uv11, uv10
-            );
-            case PY -> addQuadUV(
-                    new Vector3f(xf,   yf+1, zf  ), new Vector3f(xf,   yf+1, zf+1), new Vector3f(xf+1, yf+1, zf+1), new Vector3f(xf+1, yf+1, zf  ), FaceNormals.PY,
-                    uv00, uv01, uv11, uv10
-            );
-            case NY -> addQuadUV(
-                    new Vector3f(xf+1, yf,   zf  ), new Vector3f(xf+1, yf,   zf+1), new Vector3f(xf,   yf,   zf+1), new Vector3f(xf,   yf,   zf  ), FaceNormals.NY,
-                    uv00, uv01, uv11, uv10
-            );
-            case PZ -> addQuadUV(
-                    new Vector3f(xf,   yf,   zf+1), new Vector3f(xf+1, yf,   zf+1), new Vector3f(xf+1, yf+1, zf+1), new Vector3f(xf,   yf+1, zf+1), FaceNormals.PZ,
-                    uv00, uv01, uv11, uv10
-            );
-            case NZ -> addQuadUV(
-                    new Vector3f(xf+1, yf,   zf  ), new Vector3f(xf,   yf,   zf  ), new Vector3f(xf,   yf+1, zf  ), new Vector3f(xf+1, yf+1, zf  ), FaceNormals.NZ,
-                    uv00, uv01, uv11, uv10
-            );
+        int base = vertexCount;
+        for (int c = 0; c < 4; c++) {
+            int o = c * 3;
+            int u = uv != null ? uv[c * 2] : CORNER_UV[c * 2] * tu;
+            int v = uv != null ? uv[c * 2 + 1] : CORNER_UV[c * 2 + 1] * tv;
+            addVertex(x + corners[o] * sx, y + corners[o + 1] * sy, z + corners[o + 2] * sz, face, u, v, layer);
         }
+        // CCW triangles
+        ensureIndexCapacity(indexCount + 6);
+        indices[indexCount++] = base;     indices[indexCount++] = base + 1; indices[indexCount++] = base + 2;
+        indices[indexCount++] = base;     indices[indexCount++] = base + 2; indices[indexCount++] = base + 3;
     }
 
     private static int hash3(int x, int y, int z) {
@@ -136,35 +182,83 @@ public class MeshBuilder {
         return h;
     }
 
+    private void ensureVertexCapacity(int vertices) {
+        if (vertices * 4 <= positions.length) return;
+        int cap = Math.max(vertices, positions.length / 4 * 2);
+        positions = Arrays.copyOf(positions, cap * 4);
+        texCoords = Arrays.copyOf(texCoords, cap * 4);
+    }
+
+    private void ensureIndexCapacity(int count) {
+        if (count <= indices.length) return;
+        indices = Arrays.copyOf(indices, Math.max(count, indices.length * 2));
+    }
+
     public Mesh build() {
+        return build(toArrays());
+    }
+
+    /** Copies the accumulated geometry into right-sized arrays that outlive the next {@link #clear()}. */
+    public MeshArrays toArrays() {
+        return new MeshArrays(
+                Arrays.copyOf(positions, vertexCount * 4),
+                Arrays.copyOf(texCoords, vertexCount * 4),
+                Arrays.copyOf(indices, indexCount),
+                new int[]{minX, minY, minZ, maxX, maxY, maxZ});
+    }
+
+    /** Creates the packed jME mesh for arrays produced by {@link #toArrays()}. Must run on the render thread. */
+    public static Mesh build(MeshArrays arrays) {
         Mesh mesh = new Mesh();
-        float[] pos = toFloatArray(positions);
-        float[] nor = toFloatArray(normals);
-        float[] tc = toFloatArray(uvs);
-        int[] idx = indices.stream().mapToInt(Integer::intValue).toArray();
-        mesh.setBuffer(VertexBuffer.Type.Position, 3, pos);
-        mesh.setBuffer(VertexBuffer.Type.Normal, 3, nor);
-        mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, tc);
-        mesh.setBuffer(VertexBuffer.Type.Index, 3, idx);
-        mesh.updateBound();
+        mesh.setBuffer(VertexBuffer.Type.Position, 4, BufferUtils.createByteBuffer(arrays.positions));
+        mesh.setBuffer(VertexBuffer.Type.TexCoord, 4, BufferUtils.createByteBuffer(arrays.texCoords));
+        if (arrays.usesShortIndices()) {
+            ShortBuffer idx = BufferUtils.createShortBuffer(arrays.indices.length);
+            for (int i : arrays.indices) idx.put((short) i);
+            mesh.setBuffer(VertexBuffer.Type.Index, 3, VertexBuffer.Format.UnsignedShort, idx.flip());
+        } else {
+            IntBuffer idx = BufferUtils.createIntBuffer(arrays.indices.length).put(arrays.indices).flip();
+            mesh.setBuffer(VertexBuffer.Type.Index, 3, idx);
+        }
+        // Mesh.updateBound() only reads float positions, so the bound is set from the tracked extents
+        int[] b = arrays.bounds;
+        mesh.setBound(new BoundingBox(new Vector3f(b[0], b[1], b[2]), new Vector3f(b[3], b[4], b[5])));
         mesh.updateCounts();
         return mesh;
     }
 
-    private static float[] toFloatArray(List<Float> list) {
-        float[] arr = new float[list.size()];
-        for (int i = 0; i < arr.length; i++) arr[i] = list.get(i);
-        return arr;
-    }
+    /** Plain vertex and index arrays of a finished packed mesh, independent of jME buffers. */
+    public static final class MeshArrays {
+        final byte[] positions;
+        final byte[] texCoords;
+        final int[] indices;
+        final int[] bounds; // min x,y,z then max x,y,z in chunk-local coordinates
 
-    public enum Face { PX, NX, PY, NY, PZ, NZ }
+        MeshArrays(byte[] positions, byte[] texCoords, int[] indices, int[] bounds) {
+            this.positions = positions;
+            this.texCoords = texCoords;
+            this.indices = indices;
+            this.bounds = bounds;
+        }
 
-    public static class FaceNormals {
-        public static final Vector3f PX = new Vector3f(1,0,0);
-        public static final Vector3f NX = new Vector3f(-1,0,0);
-        public static final Vector3f PY = new Vector3f(0,1,0);
-        public static final Vector3f NY = new Vector3f(0,-1,0);
-        public static final Vector3f PZ = new Vector3f(0,0,1);
-        public static final Vector3f NZ = new Vector3f(0,0,-1);
+        public int getVertexCount() {
+            return positions.length / 4;
+        }
+
+        boolean usesShortIndices() {
+            return getVertexCount() <= 0xFFFF;
+        }
+
+        /** GPU bytes of the packed mesh: vertex data plus 16- or 32-bit indices. */
+        public int getPackedBytes() {
+            return getVertexCount() * VERTEX_BYTES + indices.length * (usesShortIndices() ? 2 : 4);
+        }
+
+        /** GPU bytes the same mesh took with float position/normal/uv and 32-bit indices. */
+        public int getFloatBytes() {
+            return getVertexCount() * FLOAT_VERTEX_BYTES + indices.length * 4;
+        }
     }
+
+    public enum Face { PX, NX, PY, NY, PZ, NZ }
 }
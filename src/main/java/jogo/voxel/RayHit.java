@@ -0,0 +1,36 @@
+package jogo.voxel;
+
+import com.jme3.math.Vector3f;
+
+/**
+ * Result of a voxel raycast, filled in place by {@link VoxelWorld#raycast} so callers can keep one
+ * instance and cast every frame without allocating. Only meaningful after a cast that returned true.
+ */
+public class RayHit {
+    /** Cell of the solid voxel that was hit. */
+    public int x, y, z;
+    /** Face of the hit voxel the ray entered through; all zero when the ray started inside it. */
+    public int normalX, normalY, normalZ;
+    /** Distance along the ray to the entry point. */
+    public float distance;
+
+    void set(int x, int y, int z, int normalX, int normalY, int normalZ, float distance) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.normalZ = normalZ;
+        this.distance = distance;
+    }
+
+    /** Hit cell as a new vector, for code that keys blocks by {@link VoxelWorld.Vector3i}. */
+    public VoxelWorld.Vector3i getCell() {
+        return new VoxelWorld.Vector3i(x, y, z);
+    }
+
+    /** Stores the face normal in store and returns it. */
+    public Vector3f getNormal(Vector3f store) {
+        return store.set(normalX, normalY, normalZ);
+    }
+}
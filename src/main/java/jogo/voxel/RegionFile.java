@@ -0,0 +1,225 @@
+package jogo.voxel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * One open region file: the chunks of an 8x8x8 block of chunk coordinates, read and written with
+ * positional {@link FileChannel} reads and writes. The header is read once when the file is opened
+ * and kept in memory, so reading a chunk costs a single read. The file is not memory-mapped: on
+ * Windows a live mapping (which stays until the buffer is collected) keeps the file from growing.
+ * <p>
+ * Layout, in 4 KiB sectors: a header sector pair holding a magic number, the format version and one
+ * (first sector, byte length) entry per chunk slot, followed by chunk records. A record is the
+ * chunk's voxels in {@link Chunk#index} order, compressed as a local palette (block ids present in
+ * the chunk) and runs of (length, palette index), followed by the chunk's block entities when it
+ * has any (see {@link Chunk#saveBlockEntities}). A saved record is never overwritten: a new version
+ * goes into free sectors, reusing ones no chunk points at any more, or at the end of the file.
+ */
+final class RegionFile implements Closeable {
+    /** log2 of the region edge in chunks. */
+    static final int SHIFT = 3;
+    static final int SIZE = 1 << SHIFT;
+    static final int SLOTS = SIZE * SIZE * SIZE;
+
+    private static final int MAGIC = 0x4A524731; // "JRG1"
+    private static final int VERSION = 1;
+    private static final int SECTOR = 4096;
+    private static final int HEADER_BYTES = 8 + SLOTS * 8;
+    private static final int HEADER_SECTORS = (HEADER_BYTES + SECTOR - 1) / SECTOR;
+    /** Largest possible record: a full palette plus one run per voxel. */
+    static final int MAX_RECORD = 1 + 256 + Chunk.VOLUME * 3;
+
+    private final Path file;
+    private final FileChannel channel;
+    // The header as it is on disk: first sector and byte length per slot
+    private final int[] sectors = new int[SLOTS];
+    private final int[] sizes = new int[SLOTS];
+    private long size;
+
+    private RegionFile(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    static Path path(Path dir, int rx, int ry, int rz) {
+        return dir.resolve("r." + rx + "." + ry + "." + rz + ".region");
+    }
+
+    /** Slot of a chunk inside its region. */
+    static int slot(int cx, int cy, int cz) {
+        return (((cx & (SIZE - 1)) << SHIFT | (cy & (SIZE - 1))) << SHIFT) | (cz & (SIZE - 1));
+    }
+
+    /**
+     * Compresses VOLUME voxels into out, which must hold {@link #MAX_RECORD} bytes.
+     * Returns the record length.
+     */
+    static int encode(byte[] voxels, byte[] out) {
+        byte[] local = new byte[256];
+        java.util.Arrays.fill(local, (byte) -1);
+        int paletteSize = 0;
+        for (int i = 0; i < Chunk.VOLUME; i++) {
+            int id = voxels[i] & 0xFF;
+            if (local[id] == -1) {
+                local[id] = (byte) paletteSize;
+                out[1 + paletteSize++] = (byte) id;
+            }
+        }
+        out[0] = (byte) (paletteSize - 1);
+        int pos = 1 + paletteSize;
+        for (int i = 0; i < Chunk.VOLUME; ) {
+            byte id = voxels[i];
+            int run = 1;
+            while (i + run < Chunk.VOLUME && voxels[i + run] == id) run++;
+            out[pos++] = (byte) (run >> 8);
+            out[pos++] = (byte) run;
+            out[pos++] = local[id & 0xFF];
+            i += run;
+        }
+        return pos;
+    }
+
+    /** Decompresses the record at the buffer's position into VOLUME voxels. */
+    static void decode(ByteBuffer in, byte[] voxels) throws IOException {
+        int paletteSize = (in.get() & 0xFF) + 1;
+        byte[] palette = new byte[paletteSize];
+        in.get(palette);
+        for (int i = 0; i < Chunk.VOLUME; ) {
+            int run = in.getShort() & 0xFFFF;
+            int index = in.get() & 0xFF;
+            if (run == 0 || i + run > Chunk.VOLUME || index >= paletteSize) throw new IOException("Corrupt chunk record");
+            java.util.Arrays.fill(voxels, i, i + run, palette[index]);
+            i += run;
+        }
+    }
+
+    /**
+     * Opens a region file and reads its header; a file that does not exist is created (empty) only
+     * if create is set. The file stays open until {@link #close()}.
+     */
+    static RegionFile open(Path file, boolean create) throws IOException {
+        FileChannel channel = create
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        RegionFile region = new RegionFile(file, channel);
+        try {
+            region.readHeader();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return region;
+    }
+
+    private void readHeader() throws IOException {
+        size = channel.size();
+        if (size == 0) return; // new file: the header is written with the first records
+        if (size < HEADER_BYTES) throw new IOException("Truncated region file " + file);
+        ByteBuffer header = readFully(channel, 0, HEADER_BYTES, file);
+        checkHeader(header, file);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            sectors[slot] = header.getInt(8 + slot * 8);
+            sizes[slot] = header.getInt(12 + slot * 8);
+        }
+    }
+
+    /**
+     * Decodes the chunk stored in slot into voxels.
+     * Returns the rest of the record, the chunk's block entities (empty if it has none), or null,
+     * leaving voxels untouched, if the slot is empty.
+     */
+    byte[] readChunk(int slot, byte[] voxels) throws IOException {
+        int length = sizes[slot];
+        if (length == 0) return null;
+        if ((long) sectors[slot] * SECTOR + length > size) throw new IOException("Chunk record past the end of " + file);
+        ByteBuffer record = readFully(channel, (long) sectors[slot] * SECTOR, length, file);
+        decode(record, voxels);
+        byte[] blockEntities = new byte[record.remaining()];
+        record.get(blockEntities);
+        return blockEntities;
+    }
+
+    /**
+     * Writes count records: slots[i] receives the first lengths[i] bytes of records[i]. Other
+     * chunks in the file are left untouched.
+     * <p>
+     * A record never overwrites sectors the header on disk still points at: it goes into sectors no
+     * chunk uses, or at the end of the file. The records are forced to disk before the header is
+     * rewritten to point at them, so a crash mid-save leaves the previous version of every chunk.
+     * If the write fails, the header kept in memory still describes the file as it was.
+     */
+    void write(int[] slots, byte[][] records, int[] lengths, int count) throws IOException {
+        int[] newSectors = sectors.clone();
+        int[] newSizes = sizes.clone();
+        int fileSectors = (int) Math.max(HEADER_SECTORS, (size + SECTOR - 1) / SECTOR);
+        BitSet used = new BitSet();
+        used.set(0, HEADER_SECTORS);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (sizes[slot] != 0) used.set(sectors[slot], sectors[slot] + sectorCount(sizes[slot]));
+        }
+        // New sectors for every record: the first free run that fits, else the end of the file.
+        // The sectors the records had stay reserved until the next write, when the header no longer points at them.
+        for (int i = 0; i < count; i++) {
+            int need = sectorCount(lengths[i]);
+            int at = HEADER_SECTORS;
+            while (true) {
+                at = used.nextClearBit(at);
+                int next = used.nextSetBit(at);
+                if (next < 0 || next - at >= need) break;
+                at = next;
+            }
+            used.set(at, at + need);
+            fileSectors = Math.max(fileSectors, at + need);
+            newSectors[slots[i]] = at;
+            newSizes[slots[i]] = lengths[i];
+            writeFully(channel, ByteBuffer.wrap(records[i], 0, lengths[i]), (long) at * SECTOR);
+        }
+        channel.force(true); // records, and the file length for files that grew
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            header.putInt(8 + slot * 8, newSectors[slot]);
+            header.putInt(12 + slot * 8, newSizes[slot]);
+        }
+        writeFully(channel, header, 0);
+        channel.force(false);
+        System.arraycopy(newSectors, 0, sectors, 0, SLOTS);
+        System.arraycopy(newSizes, 0, sizes, 0, SLOTS);
+        size = channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int sectorCount(int length) {
+        return (length + SECTOR - 1) / SECTOR;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length, Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) throw new IOException("Unexpected end of " + file);
+        }
+        return buf.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        long start = position - buf.position();
+        while (buf.hasRemaining()) channel.write(buf, start + buf.position());
+    }
+
+    private static void checkHeader(ByteBuffer buf, Path file) throws IOException {
+        if (buf.getInt(0) != MAGIC) throw new IOException("Not a region file: " + file);
+        if (buf.getInt(4) != VERSION) throw new IOException("Unsupported region version " + buf.getInt(4) + " in " + file);
+    }
+}
@@ -0,0 +1,233 @@
+package jogo.voxel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the terrain of one chunk column (all chunk layers of a 16x16 block of voxel columns)
+ * from the seed alone, so columns can be generated in any order, on any thread, and always come
+ * out the same. Trees belong to the column of their trunk; a column also plants the parts of its
+ * neighbours' trees whose crowns reach into it, which is why tree spots are drawn from their own
+ * random stream and never depend on generated voxels.
+ */
+final class TerrainGenerator {
+    private static final byte AIR = VoxelPalette.AIR_ID;
+    private static final byte GRASS = VoxelPalette.GRASS_ID;
+    private static final byte WOOD = VoxelPalette.WOOD_ID;
+    private static final byte LEAVES = VoxelPalette.LEAVES_ID;
+    private static final byte STONE = VoxelPalette.STONE_ID;
+    private static final byte DIRT = VoxelPalette.DIRT_ID;
+    private static final byte SAND = VoxelPalette.SAND_ID;
+    private static final byte METALORE = VoxelPalette.METALORE_ID;
+    private static final byte SOULSAND = VoxelPalette.SOULSAND_ID;
+    private static final byte HOTBLOCK = VoxelPalette.HOTBLOCK_ID;
+    private static final byte BEDROCK = VoxelPalette.BEDROCK_ID;
+
+    private static final long BIOME_SEED_SALT = 0x5DEECE66DL;
+    private static final long TREE_SEED_SALT = 0x2545F4914F6CDD1DL;
+    private static final int BASE_HEIGHT = 20;
+    private static final int AMPLITUDE = 8;
+    private static final float BIOME_FREQUENCY = 0.005f; // Frequência baixa para grandes biomas
+    private static final float HEIGHT_FREQUENCY = 0.02f;
+    private static final double TREE_CHANCE = 0.005;
+    /** Leaves reach this far from the trunk, so only the adjacent columns can plant into a column. */
+    private static final int CROWN_RADIUS = 2;
+
+    private enum Biome { DESERT, HOT, DEFAULT }
+
+    private final VoxelPalette palette;
+    private final int sizeY;
+    private final int countY;
+    private final long seed;
+    private final VoxelWorld.SimpleNoise heightNoise;
+    private final VoxelWorld.SimpleNoise biomeNoise;
+
+    TerrainGenerator(VoxelPalette palette, int sizeY, long seed) {
+        this.palette = palette;
+        this.sizeY = sizeY;
+        this.countY = (sizeY + Chunk.MASK) >> Chunk.SHIFT;
+        this.seed = seed;
+        this.heightNoise = new VoxelWorld.SimpleNoise(seed);
+        this.biomeNoise = new VoxelWorld.SimpleNoise(seed ^ BIOME_SEED_SALT);
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Generates chunk column (cx,cz): one new chunk per layer, bottom first, compacted and counted
+     * as saved (a generated chunk can always be generated again). Touches no shared state.
+     */
+    Chunk[] generateColumn(int cx, int cz) {
+        Chunk[] chunks = new Chunk[countY];
+        for (int cy = 0; cy < countY; cy++) chunks[cy] = new Chunk(cx, cy, cz, palette);
+        SplittableRandom random = new SplittableRandom(columnSeed(cx, cz));
+        byte[] column = new byte[countY << Chunk.SHIFT];
+
+        for (int x = cx << Chunk.SHIFT; x < (cx + 1) << Chunk.SHIFT; x++) {
+            for (int z = cz << Chunk.SHIFT; z < (cz + 1) << Chunk.SHIFT; z++) {
+                Biome biome = biomeAt(x, z);
+                int height = heightAt(x, z);
+
+                // Colocar Blocos
+                java.util.Arrays.fill(column, AIR);
+                for (int y = height; y >= 0; y--) {
+                    if (biome == Biome.HOT) {
+                        if (y >= height - 2) {
+                            column[y] = HOTBLOCK;
+                        } else {
+                            column[y] = random.nextDouble() < 0.2 ? METALORE : STONE;
+                        }
+                    } else if (biome == Biome.DESERT) {
+                        if (y > height - 5) { // Camadas de Areia
+                            column[y] = random.nextDouble() < 0.05 && y >= height - 2 ? SOULSAND : SAND;
+                        } else {
+                            column[y] = BEDROCK;
+                        }
+                    } else { // Bioma Padrão
+                        if (y == height) {
+                            column[y] = GRASS;
+                        } else if (y > height - 3) {
+                            column[y] = DIRT;
+                        } else {
+                            column[y] = y < BASE_HEIGHT - 4 && random.nextDouble() < 0.015 ? METALORE : STONE;
+                        }
+                    }
+                }
+                int lx = x & Chunk.MASK, lz = z & Chunk.MASK;
+                for (int cy = 0; cy < countY; cy++) chunks[cy].setColumn(lx, lz, column, cy << Chunk.SHIFT);
+            }
+        }
+
+        // Árvores desta coluna e das vizinhas cujas copas entram nela, sempre pela mesma ordem
+        for (int nx = cx - 1; nx <= cx + 1; nx++) {
+            for (int nz = cz - 1; nz <= cz + 1; nz++) {
+                for (TreeSpot tree : treeSpots(nx, nz)) {
+                    if (tree.hot) {
+                        generateHotTree(chunks, cx, cz, tree.x, tree.y, tree.z, tree.trunkHeight);
+                    } else {
+                        generateTree(chunks, cx, cz, tree.x, tree.y, tree.z, tree.trunkHeight);
+                    }
+                }
+            }
+        }
+        for (Chunk chunk : chunks) {
+            chunk.compact();
+            chunk.markSaved();
+        }
+        return chunks;
+    }
+
+    // Biome of column (x,z); low-frequency noise gives large biomes
+    private Biome biomeAt(int x, int z) {
+        float biomeN = biomeNoise.noise(x * BIOME_FREQUENCY, z * BIOME_FREQUENCY);
+        if (biomeN < -0.3f) return Biome.DESERT;
+        if (biomeN > 0.3f) return Biome.HOT;
+        return Biome.DEFAULT;
+    }
+
+    // Surface height of column (x,z), clamped to the world's vertical limits
+    private int heightAt(int x, int z) {
+        float n = heightNoise.noise(x * HEIGHT_FREQUENCY, z * HEIGHT_FREQUENCY);
+        int height = BASE_HEIGHT + (int) (n * AMPLITUDE);
+        if (height < 3) height = 3;
+        if (height >= sizeY - 1) height = sizeY - 2;
+        return height;
+    }
+
+    /** Trees rooted in chunk column (cx,cz), in column order; depends only on the seed. */
+    private List<TreeSpot> treeSpots(int cx, int cz) {
+        SplittableRandom random = new SplittableRandom(columnSeed(cx, cz) ^ TREE_SEED_SALT);
+        List<TreeSpot> trees = new ArrayList<>();
+        for (int x = cx << Chunk.SHIFT; x < (cx + 1) << Chunk.SHIFT; x++) {
+            for (int z = cz << Chunk.SHIFT; z < (cz + 1) << Chunk.SHIFT; z++) {
+                Biome biome = biomeAt(x, z);
+                if (biome == Biome.DESERT || random.nextDouble() >= TREE_CHANCE) continue;
+                trees.add(new TreeSpot(x, heightAt(x, z) + 1, z, 4 + random.nextInt(3), biome == Biome.HOT));
+            }
+        }
+        return trees;
+    }
+
+    // Seed of a chunk column's generator: depends only on the world seed and the column
+    private long columnSeed(int cx, int cz) {
+        long h = seed ^ (cx * 0x9E3779B97F4A7C15L) ^ (cz * 0xC2B2AE3D27D4EB4FL);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    // Writes one voxel of a tree if it falls inside column (cx,cz) and the world's height
+    private void set(Chunk[] chunks, int cx, int cz, int x, int y, int z, byte id) {
+        if (x >> Chunk.SHIFT != cx || z >> Chunk.SHIFT != cz || y < 0 || y >= sizeY) return;
+        chunks[y >> Chunk.SHIFT].set(x & Chunk.MASK, y & Chunk.MASK, z & Chunk.MASK, id);
+    }
+
+    /** Tree base drawn for a column, planted by every column its crown reaches. */
+    private static final class TreeSpot {
+        final int x, y, z, trunkHeight;
+        final boolean hot;
+
+        TreeSpot(int x, int y, int z, int trunkHeight, boolean hot) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.trunkHeight = trunkHeight;
+            this.hot = hot;
+        }
+    }
+
+    /**
+     * Gera uma árvore padrão, composta por um tronco vertical de madeira e uma copa de folhas.
+     * O tronco tem uma altura variável entre 4 e 6 blocos. As folhas são geradas em redor do topo
+     * do tronco seguindo um cálculo de distância de Manhattan para criar um formato orgânico.
+     * Só são escritos os blocos que caem na coluna (cx,cz).
+     * @param chunks Chunks da coluna a gerar.
+     * @param x Coordenada X da base do tronco.
+     * @param y Coordenada Y da base do tronco.
+     * @param z Coordenada Z da base do tronco.
+     * @param trunkHeight Altura do tronco, sorteada com a posição da árvore.
+     */
+    private void generateTree(Chunk[] chunks, int cx, int cz, int x, int y, int z, int trunkHeight) {
+
+        // Tronco
+        for (int i = 0; i < trunkHeight; i++) {
+            set(chunks, cx, cz, x, y + i, z, WOOD);
+        }
+
+        int topY = y + trunkHeight;
+
+        // Folhas
+        for (int lx = -CROWN_RADIUS; lx <= CROWN_RADIUS; lx++) {
+            for (int lz = -CROWN_RADIUS; lz <= CROWN_RADIUS; lz++) {
+                for (int ly = -1; ly <= 2; ly++) {
+
+                    float dist = Math.abs(lx) + Math.abs(lz) + Math.abs(ly);
+                    if (dist <= 3) {
+                        set(chunks, cx, cz, x + lx, topY + ly, z + lz, LEAVES);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gera uma "Árvore Quente" (Hot Tree), típica de biomas áridos ou de alta temperatura.
+     * Esta variante gera apenas o tronco vertical de madeira, sem a presença de folhas,
+     * simulando uma árvore seca ou petrificada.
+     * @param chunks Chunks da coluna a gerar.
+     * @param x Coordenada X da base do tronco.
+     * @param y Coordenada Y da base do tronco.
+     * @param z Coordenada Z da base do tronco.
+     * @param trunkHeight Altura do tronco, sorteada com a posição da árvore.
+     */
+    private void generateHotTree(Chunk[] chunks, int cx, int cz, int x, int y, int z, int trunkHeight) {
+
+        // Tronco
+        for (int i = 0; i < trunkHeight; i++) {
+            set(chunks, cx, cz, x, y + i, z, WOOD);
+        }
+    }
+}
@@ -80,6 +80,15 @@ public abstract class VoxelBlockType {
         return false;
     }
 
+    /**
+     * Cria o estado próprio de um bloco deste tipo (ex.: os slots de uma fornalha), guardado e
+     * descarregado com o chunk do bloco.
+     * @return Um novo {@link BlockEntity}, ou null (padrão) se o bloco não tiver estado.
+     */
+    public BlockEntity createBlockEntity() {
+        return null;
+    }
+
     /**
      * Returns the Material for this block type. Override in subclasses for custom materials.
      */
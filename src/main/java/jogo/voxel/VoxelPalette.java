@@ -18,11 +18,17 @@ import java.util.List;
 
 public class VoxelPalette {
     private final List<VoxelBlockType> types = new ArrayList<>();
+    // isTickable() per id, cached so chunk writes can keep their tickable index without a virtual call
+    private final boolean[] tickable = new boolean[256];
+    // isSolid() per id, cached for the same reason (raycasts test one id per voxel step)
+    private final boolean[] solid = new boolean[256];
 
     public byte register(VoxelBlockType type) {
         types.add(type);
         int id = types.size() - 1;
         if (id > 255) throw new IllegalStateException("Too many voxel block types (>255)");
+        tickable[id] = type.isTickable();
+        solid[id] = type.isSolid();
         return (byte) id;
     }
 
@@ -34,6 +40,10 @@ public class VoxelPalette {
 
     public int size() { return types.size(); }
 
+    public boolean isTickable(byte id) { return tickable[id & 0xFF]; }
+
+    public boolean isSolid(byte id) { return solid[id & 0xFF]; }
+
     public static VoxelPalette defaultPalette() {
         VoxelPalette p = new VoxelPalette();
         p.register(new AirBlockType());   // id 0
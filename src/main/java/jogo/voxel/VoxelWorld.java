@@ -2,102 +2,191 @@ package jogo.voxel;
 
 import com.jme3.asset.AssetManager;
 import com.jme3.bullet.PhysicsSpace;
-import com.jme3.material.Material;
-import com.jme3.material.RenderState;
-import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
-import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
-import com.jme3.texture.Texture2D;
-import jogo.util.Hit;
-import jogo.util.ProcTextures;
-import jogo.util.furnace.FurnaceState;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class VoxelWorld {
     private final AssetManager assetManager;
-    private final int sizeX, sizeY, sizeZ;
+    private final int sizeY;
     private final VoxelPalette palette;
     private final int baseHeight = 20;
     private final int amplitude = 10;
     private final float frequency = 0.05f;
-    private static final byte AIR = VoxelPalette.AIR_ID;
-    private static final byte GRASS = VoxelPalette.GRASS_ID;
-    private static final byte WOOD = VoxelPalette.WOOD_ID;
-    private static final byte LEAVES = VoxelPalette.LEAVES_ID;
-    private static final byte STONE = VoxelPalette.STONE_ID; // 1
-    private static final byte DIRT = VoxelPalette.DIRT_ID; // 2
-    private static final byte SAND = VoxelPalette.SAND_ID; // 3
-    private static final byte METALORE = VoxelPalette.METALORE_ID; // 4
-    private static final byte SOULSAND = VoxelPalette.SOULSAND_ID; // 6
-    private static final byte HOTBLOCK = VoxelPalette.HOTBLOCK_ID; // 8
-    private static final byte BEDROCK =  VoxelPalette.BEDROCK_ID; // 12
 
     private final Node node = new Node("VoxelWorld");
-    private final Map<Byte, Geometry> geoms = new HashMap<>();
-    private final Map<Byte, Material> materials = new HashMap<>();
-
-    private boolean lit = true;       // Shading: On by default
-    private boolean wireframe = false; // Wireframe: Off by default
-    private boolean culling = true;   // Culling: On by default
+    // Shading on, wireframe off and culling on by default
+    private final BlockMaterialCache materials;
+    // Chunk collision shapes, built from the boxes the mesh workers merge
+    private final ChunkCollision collision = new ChunkCollision();
+    // Chunks with collision bodies are streamed around the physics anchors (player, other bodies):
+    // loaded within physicsRadius chunks, evicted only beyond physicsEvictRadius
+    private int physicsRadius = 2;
+    private int physicsEvictRadius = 3;
+    private final Set<Chunk> physicsChunks = new HashSet<>();
+    private int[] physicsAnchorChunks = new int[0]; // chunk coords of the anchors at the last streaming pass
+    private Chunk.MeshingMode meshingMode = Chunk.MeshingMode.GREEDY; // Greedy meshing: On by default
     private int groundHeight = 8; // baseline Y level
-
-    private static final int TICKET_RADIUS = 8;
-
-    private final Map<Vector3i, FurnaceState> furnaceStates = new HashMap<>();
-
-    // Chunked world data
+    // Terrain generation: the seed fixes noise, ores and trees, so every chunk column can be generated on its own
+    private static final long DEFAULT_SEED = 2742L;
+    private long seed = DEFAULT_SEED;
+    // Players start over the middle of chunk column (0,0)
+    private static final int SPAWN_X = Chunk.SIZE / 2, SPAWN_Z = Chunk.SIZE / 2;
+
+    // Random ticks: every RANDOM_TICK_INTERVAL seconds each chunk gets RANDOM_TICKS_PER_CHUNK picks per 4096 voxels,
+    // so a tickable block is picked on average every 4096 / 24 ≈ 171 s (the old scan ticked its area every 180 s)
+    public static final float RANDOM_TICK_INTERVAL = 1.0f;
+    private static final int RANDOM_TICKS_PER_CHUNK = 24;
+    private final SplittableRandom tickRandom = new SplittableRandom();
+
+    // Block entities with work to do, ticked by updateBlockEntities; see BlockEntity
+    private final List<BlockEntity> activeBlockEntities = new ArrayList<>();
+
+    /** Duração de um tick do mundo, em segundos (ver {@link #getWorldTick()}). */
+    public static final float TICK_SECONDS = 0.1f;
+    // World clock, advanced by updateBlockEntities and saved with the world
+    private long worldTick;
+    private double tickTime; // seconds not yet counted as a tick
+
+    // Background chunk meshing: workers mesh snapshots into arrays, the render thread uploads them
+    private static final int MESH_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int MESH_UPLOADS_PER_FRAME = 8;
+    private static final int DEFAULT_REBUILD_BUDGET = 64;
+    private final ExecutorService meshPool = Executors.newFixedThreadPool(MESH_WORKERS, new MeshThreadFactory());
+    private final ArrayDeque<MeshBatch> pendingMeshBatches = new ArrayDeque<>();
+    // Every chunk whose dirty flag is set, in the order it was dirtied; drained by commitChanges
+    private final ArrayDeque<Chunk> dirtyChunks = new ArrayDeque<>();
+    private int rebuildBudget = DEFAULT_REBUILD_BUDGET;
+    // Meshing stats since the last render debug report
+    private int statUploads;
+    private int statMaxUploads; // most chunks swapped in by one frame
+    private long statMeshNanos;   // on the workers
+    private long statUploadNanos; // on the render thread
+    private int statCollisionRebuilds;
+    private long statCollisionNanos;
+
+    // Chunked world data: unbounded along x and z, sizeY high; only the columns around the player are loaded
     private final int chunkSize = Chunk.SIZE;
-    private final int chunkCountX, chunkCountY, chunkCountZ;
-    private final Chunk[][][] chunks;
+    private final int chunkCountY;
+    private final ChunkManager chunks;
+    // Top solid / top non-air Y per loaded column, maintained by setBlock and WorldWriter
+    private final Heightmap heightmap;
+    // Cells whose block must be re-evaluated (e.g. sand that may have lost its support)
+    private final BlockUpdateQueue blockUpdates;
+    private static final int BLOCK_UPDATES_PER_FRAME = 1024;
 
-    public VoxelWorld(AssetManager assetManager, int sizeX, int sizeY, int sizeZ) {
+    /**
+     * Cria um mundo sem limites em x e z, com sizeY blocos de altura e ainda sem chunks carregados:
+     * as colunas de chunks são lidas do disco ou geradas por {@link #loadArea} e {@link #updateStreaming}.
+     * @param assetManager Gestor de assets, para as texturas dos blocos.
+     * @param sizeY Altura do mundo em blocos.
+     */
+    public VoxelWorld(AssetManager assetManager, int sizeY) {
         this.assetManager = assetManager;
-        this.sizeX = sizeX;
         this.sizeY = sizeY;
-        this.sizeZ = sizeZ;
         this.palette = VoxelPalette.defaultPalette();
-        // Remove old vox array
-        // this.vox = new byte[sizeX][sizeY][sizeZ];
-        this.chunkCountX = (int)Math.ceil(sizeX / (float)chunkSize);
         this.chunkCountY = (int)Math.ceil(sizeY / (float)chunkSize);
-        this.chunkCountZ = (int)Math.ceil(sizeZ / (float)chunkSize);
-        this.chunks = new Chunk[chunkCountX][chunkCountY][chunkCountZ];
-        for (int cx = 0; cx < chunkCountX; cx++)
-            for (int cy = 0; cy < chunkCountY; cy++)
-                for (int cz = 0; cz < chunkCountZ; cz++)
-                    chunks[cx][cy][cz] = new Chunk(cx, cy, cz);
-        initMaterials();
+        this.materials = new BlockMaterialCache(assetManager, palette);
+        this.heightmap = new Heightmap(sizeY, palette);
+        this.chunks = new ChunkManager(this, heightmap, chunkCountY, new TerrainGenerator(palette, sizeY, seed));
+        this.blockUpdates = new BlockUpdateQueue();
     }
 
     // Helper to get chunk and local coordinates
     private Chunk getChunk(int x, int y, int z) {
-        int cx = x / chunkSize;
-        int cy = y / chunkSize;
-        int cz = z / chunkSize;
-        if (cx < 0 || cy < 0 || cz < 0 || cx >= chunkCountX || cy >= chunkCountY || cz >= chunkCountZ) return null;
-        return chunks[cx][cy][cz];
+        return getChunkAt(x >> Chunk.SHIFT, y >> Chunk.SHIFT, z >> Chunk.SHIFT);
+    }
+    private int lx(int x) { return x & Chunk.MASK; }
+    private int ly(int y) { return y & Chunk.MASK; }
+    private int lz(int z) { return z & Chunk.MASK; }
+
+    /** Chunk at chunk coordinates (cx,cy,cz), or null outside the world height or not loaded. */
+    public Chunk getChunkAt(int cx, int cy, int cz) {
+        return chunks.get(cx, cy, cz);
     }
-    private int lx(int x) { return x % chunkSize; }
-    private int ly(int y) { return y % chunkSize; }
-    private int lz(int z) { return z % chunkSize; }
 
     // Block access
     public byte getBlock(int x, int y, int z) {
+        if (!inBounds(x,y,z)) return VoxelPalette.AIR_ID;
         Chunk c = getChunk(x, y, z);
         if (c == null) return VoxelPalette.AIR_ID;
-        if (!inBounds(x,y,z)) return VoxelPalette.AIR_ID;
         return c.get(lx(x), ly(y), lz(z));
     }
+
+    /**
+     * Copia a coluna vertical (x,z) inteira para dst, de y = 0 até getSizeY() - 1.
+     * Evita o cálculo de chunk por voxel em ciclos que percorrem colunas.
+     * @param dst Array com pelo menos getSizeY() posições.
+     * @return false se a coluna (x,z) não estiver carregada (dst fica inalterado).
+     */
+    public boolean getColumn(int x, int z, byte[] dst) {
+        int cx = x >> Chunk.SHIFT, cz = z >> Chunk.SHIFT;
+        if (chunks.get(cx, 0, cz) == null) return false;
+        int lx = lx(x), lz = lz(z);
+        for (int cy = 0; cy < chunkCountY; cy++) {
+            Chunk chunk = chunks.get(cx, cy, cz);
+            int y0 = cy << Chunk.SHIFT;
+            int n = Math.min(chunkSize, sizeY - y0);
+            if (n == chunkSize) {
+                chunk.getColumn(lx, lz, dst, y0);
+            } else {
+                for (int ly = 0; ly < n; ly++) dst[y0 + ly] = chunk.get(lx, ly, lz);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copia a fatia horizontal y da região [minX, minX+w) x [minZ, minZ+d) para dst,
+     * com índice (x - minX) * d + (z - minZ). Posições fora do mundo ou não carregadas ficam como ar.
+     * @param dst Array com pelo menos w * d posições.
+     */
+    public void getSlice(int y, int minX, int minZ, int w, int d, byte[] dst) {
+        java.util.Arrays.fill(dst, 0, w * d, VoxelPalette.AIR_ID);
+        if (y < 0 || y >= sizeY) return;
+        int cy = y >> Chunk.SHIFT, ly = ly(y);
+        for (int x = minX; x < minX + w; x++) {
+            int lx = lx(x);
+            int base = (x - minX) * d - minZ;
+            for (int z = minZ; z < minZ + d; ) {
+                // One chunk lookup per run of z inside the same chunk
+                int end = Math.min(minZ + d, ((z >> Chunk.SHIFT) + 1) << Chunk.SHIFT);
+                Chunk chunk = chunks.get(x >> Chunk.SHIFT, cy, z >> Chunk.SHIFT);
+                if (chunk != null) {
+                    for (; z < end; z++) dst[base + z] = chunk.get(lx, ly, lz(z));
+                }
+                z = end;
+            }
+        }
+    }
+
     public void setBlock(int x, int y, int z, byte id) {
+        if (!inBounds(x,y,z)) return;
         Chunk c = getChunk(x, y, z);
         if (c != null) {
+            byte old = c.get(lx(x), ly(y), lz(z));
             c.set(lx(x), ly(y), lz(z), id);
-            c.markDirty();
+            heightmap.update(this, x, z, y, y, id);
+            if (old != id) {
+                c.removeBlockEntity(Chunk.index(lx(x), ly(y), lz(z))); // e.g. a broken furnace loses its contents
+                scheduleNeighbourUpdates(x, y, z);
+            }
+            markChunkDirty(c);
             // If on chunk edge, mark neighbor dirty
             if (lx(x) == 0) markNeighborChunkDirty(x-1, y, z);
             if (lx(x) == chunkSize-1) markNeighborChunkDirty(x+1, y, z);
@@ -110,326 +199,652 @@ public class VoxelWorld {
 
     private void markNeighborChunkDirty(int x, int y, int z) {
         Chunk n = getChunk(x, y, z);
-        if (n != null) n.markDirty();
+        if (n != null) markChunkDirty(n);
     }
 
-    public boolean breakAt(int x, int y, int z) {
-        if (!inBounds(x,y,z)) return false;
-
-        if (getBlock(x, y, z) == VoxelPalette.FURNACE_ID) {
-            removeFurnaceState(x, y, z); // Limpa o estado persistente
-        }
+    /** Marks a chunk dirty and queues it for the next {@link #commitChanges}. */
+    void markChunkDirty(Chunk chunk) {
+        if (chunk.isDirty()) return;
+        chunk.markDirty();
+        dirtyChunks.addLast(chunk);
+    }
 
+    public boolean breakAt(int x, int y, int z) {
+        if (!inBounds(x,y,z) || getChunk(x, y, z) == null) return false;
         setBlock(x, y, z, VoxelPalette.AIR_ID);
         return true;
     }
 
     public Node getNode() { return node; }
 
+    /**
+     * Agenda uma atualização do bloco na posição indicada; fora do mundo é ignorado.
+     * As atualizações são processadas em {@link #processBlockUpdates()}.
+     */
+    public void scheduleBlockUpdate(int x, int y, int z) {
+        if (inBounds(x, y, z)) blockUpdates.add(BlockPos.pack(x, y, z));
+    }
 
+    // A changed cell and its six neighbours may react to the change
+    private void scheduleNeighbourUpdates(int x, int y, int z) {
+        scheduleBlockUpdate(x, y, z);
+        scheduleBlockUpdate(x + 1, y, z);
+        scheduleBlockUpdate(x - 1, y, z);
+        scheduleBlockUpdate(x, y + 1, z);
+        scheduleBlockUpdate(x, y - 1, z);
+        scheduleBlockUpdate(x, y, z + 1);
+        scheduleBlockUpdate(x, y, z - 1);
+    }
 
     /**
-     * Gera o terreno do mundo utilizando ruído procedural (Simple Noise).
-     * Cria biomas distintos (Deserto, Quente, Padrão) com diferentes alturas,
-     * camadas de solo, minérios e vegetação.
+     * Processa as atualizações de blocos agendadas (até um limite por frame). Um bloco afetado pela
+     * gravidade sem suporte cai de uma vez até ao primeiro bloco sólido, juntamente com os blocos com
+     * gravidade empilhados por cima dele; as escritas são feitas em massa e os chunks só ficam sujos no fim.
+     * @return Número de chunks alterados; se for maior que zero é preciso reconstruir os chunks sujos.
      */
-    public void generateLayers() {
+    public int processBlockUpdates() {
+        if (blockUpdates.size() == 0) return 0;
+        try (WorldWriter writer = writer()) {
+            for (int n = 0; n < BLOCK_UPDATES_PER_FRAME && blockUpdates.size() > 0; n++) {
+                long cell = blockUpdates.poll();
+                int x = BlockPos.x(cell), y = BlockPos.y(cell), z = BlockPos.z(cell);
+                if (palette.get(getBlock(x, y, z)).isAffectedByGravity()) collapseColumn(writer, x, y, z);
+            }
+            return writer.commit();
+        }
+    }
 
-        SimpleNoise heightNoise = new SimpleNoise(2742);
-        SimpleNoise biomeNoise = new SimpleNoise(1268);
+    // Drops the stack of gravity blocks that starts at (x,y,z) onto the first solid block below it
+    private void collapseColumn(WorldWriter writer, int x, int y, int z) {
+        int land = y;
+        while (land > 0 && !palette.get(getBlock(x, land - 1, z)).isSolid()) land--;
+        if (land == y) return;
+        int top = y;
+        while (top + 1 < sizeY && palette.get(getBlock(x, top + 1, z)).isAffectedByGravity()) top++;
+        // Bottom-up, so every source cell is read before anything is written over it
+        for (int k = y; k <= top; k++) writer.set(x, land + (k - y), z, getBlock(x, k, z));
+        for (int k = land + (top - y) + 1; k <= top; k++) writer.set(x, k, z, VoxelPalette.AIR_ID);
+        // Whatever rested on the stack has lost its support too
+        scheduleBlockUpdate(x, top + 1, z);
+    }
 
-        int width = sizeX;
-        int depth = sizeZ;
+    /** Número de atualizações de blocos ainda por processar. */
+    public int getPendingBlockUpdates() { return blockUpdates.size(); }
 
-        int baseHeight = 20;
-        int amplitude = 8;
-        float biomeFrequency = 0.005f; // Frequência baixa para grandes biomas
+    /**
+     * Cria um writer para escritas em massa (geração, edições grandes por script). Escreve diretamente
+     * nos chunks e só marca os chunks afetados como sujos uma vez, em {@link WorldWriter#commit()}.
+     * @return Um novo writer sobre este mundo.
+     */
+    public WorldWriter writer() {
+        return new WorldWriter(this, chunkCountY);
+    }
 
-        for (int x = 0; x < width; x++) {
-            for (int z = 0; z < depth; z++) {
+    /**
+     * Carrega do disco, ou gera, todas as colunas de chunks a menos de radius colunas de center e
+     * espera por elas (por exemplo em redor do spawn, antes da primeira frame). O resto do mundo é
+     * carregado aos poucos por {@link #updateStreaming}.
+     * @param center Posição no mundo.
+     * @param radius Raio em colunas de chunks.
+     * @return Número de colunas carregadas.
+     */
+    public int loadArea(Vector3f center, int radius) {
+        long start = System.nanoTime();
+        long generated = chunks.getGeneratedColumns(), read = chunks.getReadColumns();
+        int loaded = chunks.loadArea(center.x, center.z, radius);
+        System.out.println("World area loaded in " + ((System.nanoTime() - start) / 1_000_000.0) + " ms: " + loaded
+                + " chunk columns within " + radius + " of (" + (int) center.x + ", " + (int) center.z + "), "
+                + (chunks.getGeneratedColumns() - generated) + " generated, " + (chunks.getReadColumns() - read) + " read from disk, seed " + seed);
+        return loaded;
+    }
 
-                // Determinar o Bioma
-                float biomeN = biomeNoise.noise(x * biomeFrequency, z * biomeFrequency);
+    /**
+     * Carrega a área em redor do ponto de spawn, ver {@link #loadArea}.
+     * @param radius Raio em colunas de chunks.
+     * @return Número de colunas carregadas.
+     */
+    public int loadSpawnArea(int radius) {
+        return loadArea(new Vector3f(SPAWN_X, 0, SPAWN_Z), radius);
+    }
 
-                byte topBlock;
-                float oreChance;
-                int surfaceDepth;
-                boolean isHot = false;
-                boolean isDesert = false;
+    /**
+     * Faz o streaming do mundo em redor do jogador: pede as colunas de chunks em falta dentro da
+     * distância de visão, das mais próximas para as mais afastadas, junta ao mundo as que já foram
+     * lidas ou geradas (desenhadas nos commitChanges seguintes) e descarrega as que ficaram longe,
+     * guardando em disco as que foram alteradas. Chamar uma vez por frame.
+     * @param center Posição do jogador.
+     * @param physicsSpace Espaço de física, para retirar os corpos dos chunks descarregados (pode ser null).
+     */
+    public void updateStreaming(Vector3f center, PhysicsSpace physicsSpace) {
+        chunks.update(center.x, center.z, physicsSpace);
+    }
 
-                if (biomeN < -0.3f) {
-                    topBlock = SAND;
-                    oreChance = 0.0f;
-                    surfaceDepth = 5;
-                    isDesert = true;
+    /**
+     * Define a distância de visão, em colunas de chunks: o mundo é carregado até esta distância do
+     * jogador e descarregado a partir de duas colunas mais longe.
+     */
+    public void setViewDistance(int viewDistance) {
+        chunks.setViewDistance(viewDistance);
+    }
 
-                } else if (biomeN > 0.3f) {
-                    topBlock = HOTBLOCK;
-                    oreChance = 0.2f;
-                    surfaceDepth = 3;
-                    isHot = true;
+    public int getViewDistance() { return chunks.getViewDistance(); }
 
-                } else { // Bioma Padrão (Grass)
-                    topBlock = GRASS;
-                    oreChance = 0.015f;
-                    surfaceDepth = 3;
-                }
+    /** Número de chunks carregados. */
+    public int getLoadedChunkCount() { return chunks.loaded().size(); }
 
-                // Calcular Altura
-                float n = heightNoise.noise(x * 0.02f, z * 0.02f);
-                int height = baseHeight + (int) (n * amplitude);
-
-                // Limites verticais
-                if (height < 3) height = 3;
-                if (height >= sizeY - 1) height = sizeY - 2;
-
-                // Colocar Blocos
-
-                for (int y = height; y >= 0; y--) {
-
-                    if (y > height) continue;
-
-                    if (isHot) {
-                        if (y >= height - 2) {
-                            setBlock(x, y, z, HOTBLOCK);
-                        } else {
-                            if (Math.random() < oreChance) {
-                                setBlock(x, y, z, METALORE);
-                            } else {
-                                setBlock(x, y, z, STONE);
-                            }
-                        }
-
-                    } else if (isDesert) {
-                        if (y > height - surfaceDepth) { // Camadas de Areia
-                            if (Math.random() < 0.05 && y >= height - 2) {
-                                setBlock(x, y, z, SOULSAND);
-                            } else {
-                                setBlock(x, y, z, SAND);
-                            }
-                        } else {
-                            setBlock(x, y, z, BEDROCK);
-                        }
-
-                    } else { // Bioma Padrão
-                        if (y == height) {
-                            setBlock(x, y, z, GRASS);
-                        } else if (y > height - surfaceDepth) {
-                            setBlock(x, y, z, DIRT);
-                        } else {
-                            if (y < baseHeight - 4 && Math.random() < oreChance) {
-                                setBlock(x, y, z, METALORE);
-                            } else {
-                                setBlock(x, y, z, STONE);
-                            }
-                        }
-                    }
-                }
+    /** Colunas de chunks à espera de serem lidas ou geradas. */
+    public int getPendingColumnCount() { return chunks.getPendingColumnCount(); }
 
-                // 4. Geração de Árvores
-                if (getBlock(x, height + 1, z) == AIR) {
-                    if (!isDesert && !isHot && Math.random() < 0.005) {
-                        generateTree(x, height + 1, z);
-                    }
-                    if (isHot && Math.random() < 0.005) {
-                        generateHotTree(x, height + 1, z);
-                    }
-                }
-            }
+    /**
+     * Define onde são lidos os chunks guardados e onde são escritos os chunks alterados quando são
+     * descarregados. Sem storage, as alterações a chunks descarregados perdem-se.
+     * @param storage Mundo em disco, ou null.
+     */
+    public void setStorage(WorldStorage storage) {
+        chunks.setStorage(storage);
+    }
+
+    /**
+     * Indica se a coluna de chunks que contém (x,z) está carregada. Fora das colunas carregadas o
+     * mundo lê-se como ar.
+     */
+    public boolean isColumnLoaded(int x, int z) {
+        return chunks.get(x >> Chunk.SHIFT, 0, z >> Chunk.SHIFT) != null;
+    }
 
+    /** Every loaded chunk, for saving. */
+    Collection<Chunk> getLoadedChunks() {
+        return chunks.loaded();
+    }
+
+    /** Adds a chunk that was just loaded to the scene and its block entities to the world; it is queued for meshing with its column. */
+    void attachChunk(Chunk chunk) {
+        node.attachChild(chunk.getNode());
+        chunk.clearDirty(); // new chunks start dirty, but only enter the queue through markChunkDirty
+        physicsAnchorChunks = new int[0]; // the next streaming pass may give it a body
+        // Loaded entities start active; idle ones leave the active set on their first tick
+        for (BlockEntity entity : chunk.getBlockEntities()) {
+            entity.setWorld(this);
+            activate(entity);
         }
     }
 
+    /** Takes a chunk that is being unloaded out of the scene, the physics space and the dirty queue. */
+    void detachChunk(Chunk chunk, PhysicsSpace physicsSpace) {
+        node.detachChild(chunk.getNode());
+        if (physicsChunks.remove(chunk) && physicsSpace != null) chunk.removePhysics(physicsSpace);
+        if (chunk.isDirty()) {
+            dirtyChunks.remove(chunk);
+            chunk.clearDirty();
+        }
+        // Still bound to the chunk, which is saved after this; dropped from the active set on the next update
+        for (BlockEntity entity : chunk.getBlockEntities()) entity.setWorld(null);
+    }
+
+    public long getSeed() { return seed; }
+
+    /**
+     * Relógio do mundo, em ticks de {@link #TICK_SECONDS} segundos. Só avança com
+     * {@link #updateBlockEntities}, e continua onde ficou quando o mundo é carregado; os block
+     * entities calculados de forma preguiçosa (ex.: fornalhas) medem o tempo passado por ele.
+     */
+    public long getWorldTick() { return worldTick; }
+
+    /** Restores the clock of a saved world; call before the world loads any chunk. */
+    void setWorldTick(long worldTick) {
+        this.worldTick = worldTick;
+        tickTime = 0;
+    }
+
+    /**
+     * Define a seed usada para gerar as colunas de chunks que ainda não foram carregadas.
+     * @param seed Seed do mundo.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        chunks.setGenerator(new TerrainGenerator(palette, sizeY, seed));
+    }
+
+    /**
+     * Comprime os chunks carregados que ficaram com um único tipo de bloco (ar, pedra, ...),
+     * libertando o array de voxels até à próxima escrita diferente.
+     */
+    public void compactChunks() {
+        int uniform = 0;
+        for (Chunk chunk : chunks.loaded()) {
+            chunk.compact();
+            if (chunk.isUniform()) uniform++;
+        }
+        System.out.println("Uniform chunks: " + uniform + " of " + chunks.loaded().size());
+    }
+
     private int getHeightAt(int x, int z, SimpleNoise noise) {
         float n = noise.noise((int) (x * frequency), (int) (z * frequency));
         return baseHeight + (int) (n * amplitude);
     }
 
+    /**
+     * Devolve a altura do bloco sólido mais alto da coluna (x,z), lida do heightmap em O(1).
+     * @return O Y do topo sólido, ou -1 se a coluna não tiver blocos sólidos ou estiver fora do mundo.
+     */
     public int getTopSolidY(int x, int z) {
-        if (x < 0 || z < 0 || x >= sizeX || z >= sizeZ) return -1;
-        for (int y = sizeY - 1; y >= 0; y--) {
-            if (palette.get(getBlock(x, y, z)).isSolid()) return y;
-        }
-        return -1;
+        return heightmap.getTopSolidY(x, z);
     }
 
-    public Vector3f getRecommendedSpawn() {
-        int cx = sizeX / 2;
-        int cz = sizeZ / 2;
-        int ty = getTopSolidY(cx, cz);
-        if (ty < 0) ty = groundHeight;
-        return new Vector3f(cx + 0.5f, ty + 3.0f, cz + 0.5f);
+    /**
+     * Devolve a altura do bloco não-ar mais alto da coluna (x,z) (inclui folhas, água, etc.), em O(1).
+     * @return O Y do topo, ou -1 se a coluna estiver vazia ou fora do mundo.
+     */
+    public int getTopNonAirY(int x, int z) {
+        return heightmap.getTopNonAirY(x, z);
     }
 
-    private void initMaterials() {
-        // Single material for STONE blocks
-        Texture2D tex = ProcTextures.checker(128, 4, ColorRGBA.Gray, ColorRGBA.DarkGray);
-        materials.put(VoxelPalette.STONE_ID, makeLitTex(tex, 0.08f, 16f));
+    /**
+     * Copia as alturas das 16x16 colunas de uma coluna de chunks, indexadas x * Chunk.SIZE + z.
+     * @param cx Coordenada X do chunk.
+     * @param cz Coordenada Z do chunk.
+     * @param topSolid Destino do topo sólido de cada coluna, ou null.
+     * @param topNonAir Destino do topo não-ar de cada coluna, ou null.
+     */
+    public void getChunkColumnHeightmap(int cx, int cz, int[] topSolid, int[] topNonAir) {
+        if (topSolid != null) heightmap.copyChunkColumn(cx, cz, topSolid, true);
+        if (topNonAir != null) heightmap.copyChunkColumn(cx, cz, topNonAir, false);
     }
 
-    private Material makeLitTex(Texture2D tex, float spec, float shininess) {
-        Material m = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
-        m.setTexture("DiffuseMap", tex);
-        m.setBoolean("UseMaterialColors", true);
-        m.setColor("Diffuse", ColorRGBA.White);
-        m.setColor("Specular", ColorRGBA.White.mult(spec));
-        m.setFloat("Shininess", shininess);
-        applyRenderFlags(m);
-        return m;
-    }
+    Heightmap getHeightmap() { return heightmap; }
 
-    private void applyRenderFlags(Material m) {
-        m.getAdditionalRenderState().setFaceCullMode(culling ? RenderState.FaceCullMode.Back : RenderState.FaceCullMode.Off);
-        m.getAdditionalRenderState().setWireframe(wireframe);
+    /**
+     * Ponto de spawn sobre o terreno da coluna de spawn; esta deve estar carregada (ver {@link #loadSpawnArea}).
+     */
+    public Vector3f getRecommendedSpawn() {
+        int cx = SPAWN_X;
+        int cz = SPAWN_Z;
+        int ty = getTopSolidY(cx, cz);
+        if (ty < 0) ty = groundHeight;
+        return new Vector3f(cx + 0.5f, ty + 3.0f, cz + 0.5f);
     }
 
     public void buildMeshes() {
         node.detachAllChildren();
-        for (int cx = 0; cx < chunkCountX; cx++) {
-            for (int cy = 0; cy < chunkCountY; cy++) {
-                for (int cz = 0; cz < chunkCountZ; cz++) {
-                    Chunk chunk = chunks[cx][cy][cz];
-                    chunk.buildMesh(assetManager, palette);
-                    node.attachChild(chunk.getNode());
-                }
-            }
+        long start = System.nanoTime();
+        MeshBatch batch = new MeshBatch();
+        for (Chunk chunk : chunks.loaded()) batch.submit(chunk);
+        chunks.markAllMeshed();
+        long naiveTriangles = 0, triangles = 0, culledFaces = 0, drawCalls = 0, perTypeDrawCalls = 0, meshBytes = 0, floatMeshBytes = 0;
+        for (int i = 0; i < batch.chunks.size(); i++) {
+            Chunk chunk = batch.chunks.get(i);
+            chunk.applyMesh(batch.await(i), materials);
+            node.attachChild(chunk.getNode());
+            naiveTriangles += chunk.getNaiveTriangleCount();
+            triangles += chunk.getTriangleCount();
+            culledFaces += chunk.getCulledFaceCount();
+            drawCalls += chunk.getDrawCalls();
+            perTypeDrawCalls += chunk.getPerTypeDrawCalls();
+            meshBytes += chunk.getMeshBytes();
+            floatMeshBytes += chunk.getFloatMeshBytes();
         }
+        System.out.println("World meshes built (" + meshingMode.name().toLowerCase() + ") in " + ((System.nanoTime() - start) / 1_000_000.0)
+                + " ms on " + MESH_WORKERS + " workers: " + triangles + " triangles, naive would be " + naiveTriangles
+                + ", border faces culled against neighbour chunks: " + culledFaces
+                + ", draw calls: " + drawCalls + " (one material per block type would need " + perTypeDrawCalls + ")"
+                + ", mesh memory: " + (meshBytes / 1024) + " KiB (float format would be " + (floatMeshBytes / 1024) + " KiB)");
     }
 
-    public void buildPhysics(PhysicsSpace space) {
-        // Build per-chunk static rigid bodies instead of a single world body
+    /**
+     * Cria os corpos de colisão dos chunks em redor das posições iniciais (por exemplo o ponto de spawn).
+     * Os restantes chunks só ganham física quando uma âncora se aproxima, em {@link #updatePhysicsStreaming}.
+     * @param space Espaço de física.
+     * @param anchors Posições em redor das quais a física deve existir.
+     */
+    public void buildPhysics(PhysicsSpace space, Collection<Vector3f> anchors) {
         if (space == null) return;
-        for (int cx = 0; cx < chunkCountX; cx++) {
-            for (int cy = 0; cy < chunkCountY; cy++) {
-                for (int cz = 0; cz < chunkCountZ; cz++) {
-                    Chunk chunk = chunks[cx][cy][cz];
-                    chunk.updatePhysics(space);
+        long start = System.nanoTime();
+        physicsAnchorChunks = new int[0];
+        updatePhysicsStreaming(space, anchors);
+        System.out.println("World physics built in " + ((System.nanoTime() - start) / 1_000_000.0) + " ms: "
+                + physicsChunks.size() + " chunks within " + physicsRadius + " chunks of " + anchors.size() + " anchor(s), "
+                + collision.getSharedBoxCount() + " shared box shapes");
+    }
+
+    /**
+     * Mantém corpos de colisão apenas nos chunks perto das âncoras (jogador e outras entidades com física).
+     * Um chunk ganha corpo a menos de {@code physicsRadius} chunks de uma âncora e só o perde a mais de
+     * {@code physicsEvictRadius} chunks de todas, para não oscilar quando uma âncora anda na fronteira.
+     * Só faz trabalho quando alguma âncora muda de chunk; chamar uma vez por frame.
+     * @param space Espaço de física.
+     * @param anchors Posições das entidades com física.
+     */
+    public void updatePhysicsStreaming(PhysicsSpace space, Collection<Vector3f> anchors) {
+        if (space == null) return;
+        int[] anchorChunks = new int[anchors.size() * 3];
+        int n = 0;
+        for (Vector3f a : anchors) {
+            anchorChunks[n++] = Math.floorDiv((int) Math.floor(a.x), chunkSize);
+            anchorChunks[n++] = Math.floorDiv((int) Math.floor(a.y), chunkSize);
+            anchorChunks[n++] = Math.floorDiv((int) Math.floor(a.z), chunkSize);
+        }
+        if (java.util.Arrays.equals(anchorChunks, physicsAnchorChunks)) return;
+        physicsAnchorChunks = anchorChunks;
+
+        int added = 0, evicted = 0;
+        for (Iterator<Chunk> it = physicsChunks.iterator(); it.hasNext(); ) {
+            Chunk chunk = it.next();
+            if (chunkDistanceToAnchors(chunk, anchorChunks) > physicsEvictRadius) {
+                chunk.removePhysics(space);
+                it.remove();
+                evicted++;
+            }
+        }
+        for (int i = 0; i < anchorChunks.length; i += 3) {
+            for (int cx = anchorChunks[i] - physicsRadius; cx <= anchorChunks[i] + physicsRadius; cx++) {
+                for (int cy = anchorChunks[i + 1] - physicsRadius; cy <= anchorChunks[i + 1] + physicsRadius; cy++) {
+                    for (int cz = anchorChunks[i + 2] - physicsRadius; cz <= anchorChunks[i + 2] + physicsRadius; cz++) {
+                        Chunk chunk = getChunkAt(cx, cy, cz);
+                        if (chunk == null || !physicsChunks.add(chunk)) continue;
+                        updateChunkPhysics(chunk, space);
+                        added++;
+                    }
                 }
             }
         }
+        if (added > 0 || evicted > 0) {
+            System.out.println("Physics chunks: +" + added + " -" + evicted + ", active: " + physicsChunks.size());
+        }
     }
 
-    public Optional<Hit> pickFirstSolid(Camera cam, float maxDistance) {
-        Vector3f origin = cam.getLocation();
-        Vector3f dir = cam.getDirection().normalize();
+    // Chunk.updatePhysics, counted in the render debug stats
+    private boolean updateChunkPhysics(Chunk chunk, PhysicsSpace space) {
+        long start = System.nanoTime();
+        if (!chunk.updatePhysics(space, collision)) return false;
+        statCollisionRebuilds++;
+        statCollisionNanos += System.nanoTime() - start;
+        return true;
+    }
 
-        int x = (int) Math.floor(origin.x);
-        int y = (int) Math.floor(origin.y);
-        int z = (int) Math.floor(origin.z);
+    // Chebyshev distance in chunks from a chunk to the nearest anchor
+    private static int chunkDistanceToAnchors(Chunk chunk, int[] anchorChunks) {
+        int best = Integer.MAX_VALUE;
+        for (int i = 0; i < anchorChunks.length; i += 3) {
+            int d = Math.max(Math.abs(chunk.getChunkX() - anchorChunks[i]),
+                    Math.max(Math.abs(chunk.getChunkY() - anchorChunks[i + 1]), Math.abs(chunk.getChunkZ() - anchorChunks[i + 2])));
+            best = Math.min(best, d);
+        }
+        return best;
+    }
 
-        float tMaxX, tMaxY, tMaxZ;
-        float tDeltaX, tDeltaY, tDeltaZ;
-        int stepX = dir.x > 0 ? 1 : -1;
-        int stepY = dir.y > 0 ? 1 : -1;
-        int stepZ = dir.z > 0 ? 1 : -1;
+    /**
+     * Define o raio (em chunks) em que os chunks ganham física e o raio, maior ou igual, a partir do qual a perdem.
+     */
+    public void setPhysicsRadius(int radius, int evictRadius) {
+        if (radius < 0 || evictRadius < radius) throw new IllegalArgumentException("need 0 <= radius <= evictRadius");
+        physicsRadius = radius;
+        physicsEvictRadius = evictRadius;
+        physicsAnchorChunks = new int[0]; // re-evaluate on the next streaming pass
+    }
 
-        float nextVoxelBoundaryX = x + (stepX > 0 ? 1 : 0);
-        float nextVoxelBoundaryY = y + (stepY > 0 ? 1 : 0);
-        float nextVoxelBoundaryZ = z + (stepZ > 0 ? 1 : 0);
+    public int getPhysicsRadius() { return physicsRadius; }
 
-        tMaxX = (dir.x != 0) ? (nextVoxelBoundaryX - origin.x) / dir.x : Float.POSITIVE_INFINITY;
-        tMaxY = (dir.y != 0) ? (nextVoxelBoundaryY - origin.y) / dir.y : Float.POSITIVE_INFINITY;
-        tMaxZ = (dir.z != 0) ? (nextVoxelBoundaryZ - origin.z) / dir.z : Float.POSITIVE_INFINITY;
+    /** Number of chunks currently in the physics streaming set. */
+    public int getPhysicsChunkCount() { return physicsChunks.size(); }
 
-        tDeltaX = (dir.x != 0) ? stepX / dir.x : Float.POSITIVE_INFINITY;
-        tDeltaY = (dir.y != 0) ? stepY / dir.y : Float.POSITIVE_INFINITY;
-        tDeltaZ = (dir.z != 0) ? stepZ / dir.z : Float.POSITIVE_INFINITY;
+    /**
+     * Remove do espaço de física todos os corpos de colisão dos chunks.
+     * @param space Espaço de física.
+     */
+    public void removePhysics(PhysicsSpace space) {
+        if (space == null) return;
+        for (Chunk chunk : physicsChunks) chunk.removePhysics(space);
+        physicsChunks.clear();
+        physicsAnchorChunks = new int[0];
+    }
 
-        float t = 0f;
-        // starting inside a solid block
-        if (inBounds(x,y,z) && isSolid(x,y,z)) {
-            return Optional.of(new Hit(new Vector3i(x,y,z), new Vector3f(0,0,0), 0f));
-        }
+    /**
+     * Procura o primeiro bloco sólido na direção da câmara.
+     * @param cam Câmara que define a origem e a direção do raio.
+     * @param maxDistance Alcance máximo.
+     * @param hit Recebe a célula, a face atingida e a distância; só é alterado quando há impacto.
+     * @return true se um bloco sólido foi atingido dentro do alcance.
+     */
+    public boolean pickFirstSolid(Camera cam, float maxDistance, RayHit hit) {
+        Vector3f o = cam.getLocation(), d = cam.getDirection();
+        return castRay(o.x, o.y, o.z, d.x, d.y, d.z, maxDistance, hit);
+    }
 
-        Vector3f lastNormal = new Vector3f(0,0,0);
+    /**
+     * Lança um raio e devolve o primeiro bloco sólido atingido.
+     * @param origin Origem do raio.
+     * @param direction Direção (não precisa de estar normalizada).
+     * @param maxDistance Alcance máximo, em blocos.
+     * @param hit Recebe a célula, a face atingida e a distância; só é alterado quando há impacto.
+     * @return true se um bloco sólido foi atingido dentro do alcance.
+     */
+    public boolean raycast(Vector3f origin, Vector3f direction, float maxDistance, RayHit hit) {
+        return castRay(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z, maxDistance, hit);
+    }
 
-        while (t <= maxDistance) {
-            if (tMaxX < tMaxY) {
-                if (tMaxX < tMaxZ) {
-                    x += stepX; t = tMaxX; tMaxX += tDeltaX;
-                    lastNormal.set(-stepX, 0, 0);
+    /**
+     * Lança vários segmentos de uma vez, por exemplo para linhas de visão de NPCs ou para testar
+     * que blocos uma explosão alcança. O segmento i vai de (from[3i], from[3i+1], from[3i+2]) até ao
+     * ponto correspondente em to.
+     * @param count Número de segmentos.
+     * @param blocked Recebe, por segmento, se algum bloco sólido o interrompe.
+     * @param hits Recebe o impacto de cada segmento interrompido; pode ser null se só interessa blocked.
+     * @return Número de segmentos interrompidos.
+     */
+    public int raycastSegments(float[] from, float[] to, int count, boolean[] blocked, RayHit[] hits) {
+        int blockedCount = 0;
+        RayHit scratch = hits == null ? new RayHit() : null;
+        for (int i = 0; i < count; i++) {
+            int k = i * 3;
+            float dx = to[k] - from[k], dy = to[k + 1] - from[k + 1], dz = to[k + 2] - from[k + 2];
+            float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            blocked[i] = castRay(from[k], from[k + 1], from[k + 2], dx, dy, dz, length, hits != null ? hits[i] : scratch);
+            if (blocked[i]) blockedCount++;
+        }
+        return blockedCount;
+    }
+
+    /*
+     * Voxel DDA over chunk data. The ray is first clipped to the box around the loaded columns (the
+     * box is convex, so once the ray leaves it the cast is over); a chunk that has no solid voxel,
+     * or is not loaded, is crossed in a single step to the voxel where the ray leaves it, and a
+     * fully solid chunk is hit on the first voxel.
+     */
+    private boolean castRay(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance, RayHit hit) {
+        float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (length == 0f || !(maxDistance >= 0f) || chunks.isEmpty()) return false;
+        dx /= length; dy /= length; dz /= length;
+        int minX = chunks.minX() << Chunk.SHIFT, maxX = (chunks.maxX() + 1) << Chunk.SHIFT;
+        int minZ = chunks.minZ() << Chunk.SHIFT, maxZ = (chunks.maxZ() + 1) << Chunk.SHIFT;
+
+        float t = 0f, tEnd = maxDistance;
+        int nx = 0, ny = 0, nz = 0;
+        if (dx == 0f) {
+            if (ox < minX || ox >= maxX) return false;
+        } else {
+            float t0 = (minX - ox) / dx, t1 = (maxX - ox) / dx;
+            if (t0 > t1) { float s = t0; t0 = t1; t1 = s; }
+            if (t0 > t) { t = t0; nx = dx > 0 ? -1 : 1; ny = 0; nz = 0; }
+            tEnd = Math.min(tEnd, t1);
+        }
+        if (dy == 0f) {
+            if (oy < 0 || oy >= sizeY) return false;
+        } else {
+            float t0 = -oy / dy, t1 = (sizeY - oy) / dy;
+            if (t0 > t1) { float s = t0; t0 = t1; t1 = s; }
+            if (t0 > t) { t = t0; nx = 0; ny = dy > 0 ? -1 : 1; nz = 0; }
+            tEnd = Math.min(tEnd, t1);
+        }
+        if (dz == 0f) {
+            if (oz < minZ || oz >= maxZ) return false;
+        } else {
+            float t0 = (minZ - oz) / dz, t1 = (maxZ - oz) / dz;
+            if (t0 > t1) { float s = t0; t0 = t1; t1 = s; }
+            if (t0 > t) { t = t0; nx = 0; ny = 0; nz = dz > 0 ? -1 : 1; }
+            tEnd = Math.min(tEnd, t1);
+        }
+        if (t > tEnd) return false;
+
+        int x = clamp((int) Math.floor(ox + dx * t), minX, maxX - 1);
+        int y = clamp((int) Math.floor(oy + dy * t), 0, sizeY - 1);
+        int z = clamp((int) Math.floor(oz + dz * t), minZ, maxZ - 1);
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+        float tDeltaX = dx != 0 ? Math.abs(1f / dx) : Float.POSITIVE_INFINITY;
+        float tDeltaY = dy != 0 ? Math.abs(1f / dy) : Float.POSITIVE_INFINITY;
+        float tDeltaZ = dz != 0 ? Math.abs(1f / dz) : Float.POSITIVE_INFINITY;
+        float tMaxX = boundaryT(x, ox, dx), tMaxY = boundaryT(y, oy, dy), tMaxZ = boundaryT(z, oz, dz);
+
+        Chunk chunk = null;
+        int ccx = Integer.MIN_VALUE, ccy = -1, ccz = Integer.MIN_VALUE;
+        while (true) {
+            int cx = x >> Chunk.SHIFT, cy = y >> Chunk.SHIFT, cz = z >> Chunk.SHIFT;
+            if (cx != ccx || cy != ccy || cz != ccz) {
+                chunk = chunks.get(cx, cy, cz);
+                ccx = cx; ccy = cy; ccz = cz;
+            }
+            if (chunk == null || chunk.getSolidCount() == 0) {
+                // Nothing to hit in this chunk: move straight to the first voxel past its exit face
+                int bx = cx << Chunk.SHIFT, by = cy << Chunk.SHIFT, bz = cz << Chunk.SHIFT;
+                float ex = boundaryT(stepX > 0 ? bx + Chunk.MASK : bx, ox, dx);
+                float ey = boundaryT(stepY > 0 ? by + Chunk.MASK : by, oy, dy);
+                float ez = boundaryT(stepZ > 0 ? bz + Chunk.MASK : bz, oz, dz);
+                if (ex <= ey && ex <= ez) {
+                    t = ex;
+                    x = stepX > 0 ? bx + Chunk.SIZE : bx - 1;
+                    y = clamp((int) Math.floor(oy + dy * t), by, by + Chunk.MASK);
+                    z = clamp((int) Math.floor(oz + dz * t), bz, bz + Chunk.MASK);
+                    nx = -stepX; ny = 0; nz = 0;
+                } else if (ey <= ez) {
+                    t = ey;
+                    x = clamp((int) Math.floor(ox + dx * t), bx, bx + Chunk.MASK);
+                    y = stepY > 0 ? by + Chunk.SIZE : by - 1;
+                    z = clamp((int) Math.floor(oz + dz * t), bz, bz + Chunk.MASK);
+                    nx = 0; ny = -stepY; nz = 0;
                 } else {
-                    z += stepZ; t = tMaxZ; tMaxZ += tDeltaZ;
-                    lastNormal.set(0, 0, -stepZ);
+                    t = ez;
+                    x = clamp((int) Math.floor(ox + dx * t), bx, bx + Chunk.MASK);
+                    y = clamp((int) Math.floor(oy + dy * t), by, by + Chunk.MASK);
+                    z = stepZ > 0 ? bz + Chunk.SIZE : bz - 1;
+                    nx = 0; ny = 0; nz = -stepZ;
                 }
+                tMaxX = boundaryT(x, ox, dx);
+                tMaxY = boundaryT(y, oy, dy);
+                tMaxZ = boundaryT(z, oz, dz);
             } else {
-                if (tMaxY < tMaxZ) {
-                    y += stepY; t = tMaxY; tMaxY += tDeltaY;
-                    lastNormal.set(0, -stepY, 0);
+                if (chunk.getSolidCount() == Chunk.VOLUME
+                        || palette.isSolid(chunk.get(x & Chunk.MASK, y & Chunk.MASK, z & Chunk.MASK))) {
+                    hit.set(x, y, z, nx, ny, nz, t);
+                    return true;
+                }
+                if (tMaxX < tMaxY) {
+                    if (tMaxX < tMaxZ) {
+                        x += stepX; t = tMaxX; tMaxX += tDeltaX;
+                        nx = -stepX; ny = 0; nz = 0;
+                    } else {
+                        z += stepZ; t = tMaxZ; tMaxZ += tDeltaZ;
+                        nx = 0; ny = 0; nz = -stepZ;
+                    }
                 } else {
-                    z += stepZ; t = tMaxZ; tMaxZ += tDeltaZ;
-                    lastNormal.set(0, 0, -stepZ);
+                    if (tMaxY < tMaxZ) {
+                        y += stepY; t = tMaxY; tMaxY += tDeltaY;
+                        nx = 0; ny = -stepY; nz = 0;
+                    } else {
+                        z += stepZ; t = tMaxZ; tMaxZ += tDeltaZ;
+                        nx = 0; ny = 0; nz = -stepZ;
+                    }
                 }
             }
-
-            if (!inBounds(x,y,z)) {
-                if (t > maxDistance) break;
-                continue;
-            }
-            if (isSolid(x,y,z)) {
-                return Optional.of(new Hit(new Vector3i(x,y,z), lastNormal.clone(), t));
-            }
+            if (t > maxDistance || y < 0 || y >= sizeY || x < minX || x >= maxX || z < minZ || z >= maxZ) return false;
         }
-        return Optional.empty();
+    }
+
+    // Ray parameter at which the ray leaves voxel v along one axis (infinite if it never does)
+    private static float boundaryT(int v, float o, float d) {
+        if (d > 0) return (v + 1 - o) / d;
+        if (d < 0) return (v - o) / d;
+        return Float.POSITIVE_INFINITY;
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return v < min ? min : (v > max ? max : v);
     }
 
     public boolean isSolid(int x, int y, int z) {
         if (!inBounds(x,y,z)) return false;
-        return palette.get(getBlock(x, y, z)).isSolid();
+        Chunk c = getChunk(x, y, z);
+        // Chunks that are not loaded read as air; all air or all solid answer without reading the voxel
+        if (c == null || c.getSolidCount() == 0) return false;
+        if (c.getSolidCount() == Chunk.VOLUME) return true;
+        return palette.isSolid(c.get(lx(x), ly(y), lz(z)));
     }
 
-    private boolean inBounds(int x, int y, int z) {
-        return x >= 0 && y >= 0 && z >= 0 && x < sizeX && y < sizeY && z < sizeZ;
+    // The world is unbounded along x and z; only its height is limited
+    boolean inBounds(int x, int y, int z) {
+        return y >= 0 && y < sizeY;
     }
 
+    /**
+     * Alterna entre iluminação e cores sem sombreamento. Todos os chunks partilham o mesmo
+     * material, que é alterado no lugar.
+     */
     public void setLit(boolean lit) {
-        if (this.lit == lit) return;
-        this.lit = lit;
-        for (var e : geoms.entrySet()) {
-            Geometry g = e.getValue();
-            var oldMat = g.getMaterial();
-            com.jme3.texture.Texture tex = oldMat.getTextureParam("DiffuseMap") != null
-                    ? oldMat.getTextureParam("DiffuseMap").getTextureValue()
-                    : (oldMat.getTextureParam("ColorMap") != null ? oldMat.getTextureParam("ColorMap").getTextureValue() : null);
-            Material newMat;
-            if (this.lit) {
-                newMat = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
-                if (tex != null) newMat.setTexture("DiffuseMap", tex);
-                newMat.setBoolean("UseMaterialColors", true);
-                newMat.setColor("Diffuse", ColorRGBA.White);
-                newMat.setColor("Specular", ColorRGBA.White.mult(0.08f));
-                newMat.setFloat("Shininess", 16f);
-            } else {
-                newMat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
-                if (tex != null) newMat.setTexture("ColorMap", tex);
-            }
-            applyRenderFlags(newMat);
-            g.setMaterial(newMat);
-        }
+        if (materials.isLit() == lit) return;
+        materials.setLit(lit);
     }
 
     public void setWireframe(boolean wireframe) {
-        if (this.wireframe == wireframe) return;
-        this.wireframe = wireframe;
-
-        for (Geometry g : geoms.values()) applyRenderFlags(g.getMaterial());
+        if (materials.isWireframe() == wireframe) return;
+        materials.setWireframe(wireframe);
     }
 
     public void setCulling(boolean culling) {
-        if (this.culling == culling) return;
-        this.culling = culling;
-        for (Geometry g : geoms.values()) applyRenderFlags(g.getMaterial());
+        if (materials.isCulling() == culling) return;
+        materials.setCulling(culling);
     }
 
-    public boolean isLit() { return lit; }
-    public boolean isWireframe() { return wireframe; }
-    public boolean isCulling() { return culling; }
+    /**
+     * Seleciona o algoritmo de construção das malhas dos chunks (naive ou greedy).
+     * Todos os chunks são marcados como sujos e reconstruídos pelos próximos commitChanges.
+     * @param meshingMode O modo de meshing a utilizar.
+     */
+    public void setMeshingMode(Chunk.MeshingMode meshingMode) {
+        if (this.meshingMode == meshingMode) return;
+        this.meshingMode = meshingMode;
+        for (Chunk chunk : chunks.loaded()) markChunkDirty(chunk);
+    }
+
+    public Chunk.MeshingMode getMeshingMode() { return meshingMode; }
+
+    public boolean isLit() { return materials.isLit(); }
+    public boolean isWireframe() { return materials.isWireframe(); }
+    public boolean isCulling() { return materials.isCulling(); }
+
+    /**
+     * Conta as draw calls atuais dos chunks e quantas seriam precisas com um material por tipo de bloco.
+     * @return {chamadas atuais, chamadas com um material por tipo}
+     */
+    public int[] getDrawCallStats() {
+        int[] stats = new int[2];
+        for (Chunk chunk : chunks.loaded()) {
+            stats[0] += chunk.getDrawCalls();
+            stats[1] += chunk.getPerTypeDrawCalls();
+        }
+        return stats;
+    }
 
     public void toggleRenderDebug() {
         System.out.println("Toggled render debug");
         setLit(!isLit());
         setWireframe(!isWireframe());
         setCulling(!isCulling());
+        int[] drawCalls = getDrawCallStats();
+        System.out.println("Chunk draw calls: " + drawCalls[0] + " (one material per block type would need " + drawCalls[1] + ")");
+        System.out.println("Chunk meshes since last report: " + statUploads + " (at most " + statMaxUploads + " in one frame), meshed in "
+                + statMeshNanos / 1_000_000.0 + " ms on workers, uploaded in " + statUploadNanos / 1_000_000.0
+                + " ms on the render thread, backlog: " + getRebuildBacklog());
+        System.out.println("Chunk collision rebuilds since last report: " + statCollisionRebuilds + " in " + statCollisionNanos / 1_000_000.0 + " ms");
+        statUploads = statMaxUploads = statCollisionRebuilds = 0;
+        statMeshNanos = statUploadNanos = statCollisionNanos = 0;
     }
 
     public int getGroundHeight() { return groundHeight; }
@@ -439,141 +854,291 @@ public class VoxelWorld {
     }
 
     /**
-     * Rebuilds meshes only for dirty chunks. Call this once per frame in your update loop.
+     * Aplica ao render e à física todas as alterações feitas ao mundo nesta frame. Chamar uma vez por
+     * frame, no fim, depois de todos os sistemas que editam blocos: os chunks sujos, venham de onde
+     * vierem, são agendados de uma vez (no máximo getRebuildBudget() chunks; o resto fica para as
+     * frames seguintes) e as meshes e formas de colisão que os workers já terminaram são trocadas,
+     * até um limite fixo de chunks por frame.
+     * @param physicsSpace Espaço de física dos chunks, ou null para só atualizar o render.
      */
-    public void rebuildDirtyChunks(PhysicsSpace physicsSpace) {
-        int rebuilt = 0;
-        for (int cx = 0; cx < chunkCountX; cx++) {
-            for (int cy = 0; cy < chunkCountY; cy++) {
-                for (int cz = 0; cz < chunkCountZ; cz++) {
-                    Chunk chunk = chunks[cx][cy][cz];
-                    if (chunk.isDirty()) {
-                        System.out.println("Rebuilding chunk: " + cx + "," + cy + "," + cz);
-                        chunk.buildMesh(assetManager, palette);
-                        chunk.updatePhysics(physicsSpace);
-                        chunk.clearDirty();
-                        rebuilt++;
-                    }
-                }
-            }
-        }
-        if (rebuilt > 0) System.out.println("Chunks rebuilt this frame: " + rebuilt);
-        if (rebuilt > 0 && physicsSpace != null) {
-            physicsSpace.update(0); // Force physics space to process changes
-            System.out.println("Physics space forced update after chunk physics changes.");
-        }
+    public void commitChanges(PhysicsSpace physicsSpace) {
+        queueDirtyChunks();
+        uploadFinishedMeshes(physicsSpace);
     }
 
     /**
-     * Clears the dirty flag on all chunks. Call after initial buildMeshes().
+     * Define quantos chunks sujos podem ser agendados para reconstrução em cada commitChanges.
+     * @param budget Número de chunks por frame (mínimo 1).
      */
-    public void clearAllDirtyFlags() {
-        for (int cx = 0; cx < chunkCountX; cx++)
-            for (int cy = 0; cy < chunkCountY; cy++)
-                for (int cz = 0; cz < chunkCountZ; cz++)
-                    chunks[cx][cy][cz].clearDirty();
+    public void setRebuildBudget(int budget) {
+        this.rebuildBudget = Math.max(1, budget);
     }
 
-    public int getSizeX() {
-        return  sizeX;
+    public int getRebuildBudget() {
+        return rebuildBudget;
     }
 
-    public int getSizeY() {
-        return  sizeY;
+    /**
+     * Chunks cuja alteração ainda não está visível: sujos à espera de vez mais os que estão a ser
+     * reconstruídos ou à espera de upload.
+     */
+    public int getRebuildBacklog() {
+        int backlog = dirtyChunks.size();
+        for (MeshBatch batch : pendingMeshBatches) backlog += batch.chunks.size();
+        return backlog;
     }
 
-    public int getSizeZ() {
-        return  sizeZ;
+    /**
+     * Snapshots up to rebuildBudget dirty chunks, oldest first, into batches meshed on the worker
+     * pool. A batch holds at most MESH_UPLOADS_PER_FRAME chunks, so it always fits one frame's
+     * upload; chunks dirtied together by an edit (at most a chunk and its face neighbours) land in
+     * the same batch and are swapped in together.
+     */
+    private void queueDirtyChunks() {
+        int queued = 0;
+        while (!dirtyChunks.isEmpty() && queued < rebuildBudget) {
+            MeshBatch batch = new MeshBatch();
+            while (!dirtyChunks.isEmpty() && queued < rebuildBudget && batch.chunks.size() < MESH_UPLOADS_PER_FRAME) {
+                Chunk chunk = dirtyChunks.pollFirst();
+                batch.submit(chunk);
+                chunk.clearDirty();
+                queued++;
+            }
+            pendingMeshBatches.addLast(batch);
+        }
     }
 
     /**
-     * Atualiza a lógica de blocos "vivos" (tickables) dentro de um raio em volta de um centro.
-     * @param center Posição central (geralmente do jogador).
-     * @param tpf Tempo por frame.
-     * @param physicsSpace Espaço de física para reconstrução se o mundo mudar.
+     * Swaps in the meshes finished by the worker pool, at most MESH_UPLOADS_PER_FRAME chunks per
+     * frame. Batches are applied whole and in the order they were queued, so an edit never shows a
+     * torn or empty chunk; a batch that would go over the budget waits for the next frame.
      */
-    public void updateTickableBlocks(Vector3f center, float tpf, PhysicsSpace physicsSpace) {
-        if (physicsSpace == null) return;
+    private void uploadFinishedMeshes(PhysicsSpace physicsSpace) {
+        int uploaded = 0;
+        boolean terrainChanged = false;
+        while (!pendingMeshBatches.isEmpty()) {
+            MeshBatch batch = pendingMeshBatches.peekFirst();
+            if (!batch.isDone() || uploaded + batch.chunks.size() > MESH_UPLOADS_PER_FRAME) break;
+            pendingMeshBatches.removeFirst();
+            long start = System.nanoTime();
+            for (int i = 0; i < batch.chunks.size(); i++) {
+                Chunk chunk = batch.chunks.get(i);
+                Chunk.MeshData data = batch.await(i);
+                chunk.applyMesh(data, materials);
+                statMeshNanos += data.meshNanos;
+                if (physicsSpace != null && physicsChunks.contains(chunk) && updateChunkPhysics(chunk, physicsSpace)) {
+                    terrainChanged = true;
+                }
+                uploaded++;
+            }
+            statUploadNanos += System.nanoTime() - start;
+        }
+        statUploads += uploaded;
+        statMaxUploads = Math.max(statMaxUploads, uploaded);
+        if (terrainChanged) {
+            // Bodies resting on changed terrain may be asleep; the swapped shapes take effect next step
+            physicsSpace.activateAll(true);
+        }
+    }
 
-        boolean worldChanged = false;
+    /**
+     * Stops the meshing and generation workers. Call when the world is discarded.
+     */
+    public void shutdown() {
+        chunks.shutdown();
+        meshPool.shutdownNow();
+        pendingMeshBatches.clear();
+        dirtyChunks.clear();
+    }
 
-        // Converte a posição central para coordenadas de bloco
-        int px = (int) Math.floor(center.x);
-        int py = (int) Math.floor(center.y);
-        int pz = (int) Math.floor(center.z);
+    /** Chunks snapshotted together and meshed in the background, applied as one unit. */
+    private final class MeshBatch {
+        final List<Chunk> chunks = new ArrayList<>();
+        final List<Future<Chunk.MeshData>> results = new ArrayList<>();
+
+        void submit(Chunk chunk) {
+            byte[] halo = chunk.snapshot(VoxelWorld.this);
+            Chunk.MeshingMode mode = meshingMode;
+            chunks.add(chunk);
+            if (halo == null) {
+                // Nothing visible: no need to occupy a worker
+                results.add(CompletableFuture.completedFuture(chunk.meshSnapshot(null, palette, mode)));
+            } else {
+                results.add(meshPool.submit(() -> chunk.meshSnapshot(halo, palette, mode)));
+            }
+        }
 
-        // Limites da área a processar
-        int minX = Math.max(0, px - TICKET_RADIUS);
-        int maxX = Math.min(sizeX - 1, px + TICKET_RADIUS);
+        boolean isDone() {
+            for (Future<Chunk.MeshData> f : results) {
+                if (!f.isDone()) return false;
+            }
+            return true;
+        }
 
-        int minY = Math.max(1, py - TICKET_RADIUS);
-        int maxY = Math.min(sizeY - 1, py + TICKET_RADIUS);
+        Chunk.MeshData await(int i) {
+            try {
+                return results.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while meshing chunk", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Chunk meshing failed", e.getCause());
+            }
+        }
+    }
 
-        int minZ = Math.max(0, pz - TICKET_RADIUS);
-        int maxZ = Math.min(sizeZ - 1, pz + TICKET_RADIUS);
+    private static final class MeshThreadFactory implements java.util.concurrent.ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
 
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-                for (int z = minZ; z <= maxZ; z++) {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "chunk-mesher-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
 
-                    byte currentId = getBlock(x, y, z);
-                    VoxelBlockType type = palette.get(currentId);
+    /**
+     * Clears the dirty flag on all chunks. Call after initial buildMeshes().
+     */
+    public void clearAllDirtyFlags() {
+        for (Chunk chunk : chunks.loaded()) chunk.clearDirty();
+        dirtyChunks.clear();
+    }
 
-                    if (type.isTickable()) {
-                        if (type.onTick(x, y, z, this, tpf)) {
-                            worldChanged = true;
-                        }
-                    }
-                }
-            }
+    public int getSizeY() {
+        return  sizeY;
+    }
+
+    /**
+     * Executa uma ronda de ticks aleatórios; deve ser chamada a cada {@link #RANDOM_TICK_INTERVAL}
+     * segundos de jogo. Cada chunk carregado recebe em média {@code RANDOM_TICKS_PER_CHUNK} ticks por
+     * 4096 posições, sorteados apenas entre os blocos "vivos" (tickables) do seu índice: cada bloco tem
+     * a mesma probabilidade de ser escolhido, e o custo é proporcional ao número de blocos tickables e
+     * não ao volume carregado.
+     * @return true se algum tick alterou o mundo (é preciso reconstruir os chunks sujos).
+     */
+    public boolean randomTick() {
+        boolean worldChanged = false;
+        for (Chunk chunk : chunks.loaded()) {
+            if (randomTickChunk(chunk)) worldChanged = true;
         }
+        return worldChanged;
+    }
 
-        if (worldChanged) {
-            rebuildDirtyChunks(physicsSpace);
+    private boolean randomTickChunk(Chunk chunk) {
+        int count = chunk.getTickableCount();
+        if (count == 0) return false;
+        // Expected picks for this chunk, rounded up or down at random so the average stays exact
+        double expected = (double) count * RANDOM_TICKS_PER_CHUNK / Chunk.VOLUME;
+        int picks = (int) expected + (tickRandom.nextDouble() < expected - (int) expected ? 1 : 0);
+        boolean changed = false;
+        for (int n = 0; n < picks && chunk.getTickableCount() > 0; n++) {
+            int i = chunk.getTickable(tickRandom.nextInt(chunk.getTickableCount()));
+            // Local index (x << 8) | (z << 4) | y back to world coordinates
+            int x = (chunk.getChunkX() << Chunk.SHIFT) + (i >> 8);
+            int y = (chunk.getChunkY() << Chunk.SHIFT) + (i & Chunk.MASK);
+            int z = (chunk.getChunkZ() << Chunk.SHIFT) + ((i >> 4) & Chunk.MASK);
+            if (palette.get(getBlock(x, y, z)).onTick(x, y, z, this, RANDOM_TICK_INTERVAL)) changed = true;
         }
+        return changed;
     }
 
 
     /**
-     * Obtém ou cria o estado persistente de uma fornalha numa posição específica.
-     * @return O {@link FurnaceState} associado ou null se o bloco não for uma fornalha.
+     * Obtém o block entity (estado próprio, ex.: os slots de uma fornalha) do bloco na posição
+     * indicada, criando-o se o tipo de bloco o tiver (ver {@link VoxelBlockType#createBlockEntity()}).
+     * @return O block entity, ou null se o bloco não tiver estado ou o chunk não estiver carregado.
      */
-    public FurnaceState getFurnaceState(int x, int y, int z) {
-        Vector3i key = new Vector3i(x, y, z);
-        if (getBlock(x, y, z) != VoxelPalette.FURNACE_ID) {
-            furnaceStates.remove(key);
-            return null;
+    public BlockEntity getBlockEntity(int x, int y, int z) {
+        if (!inBounds(x, y, z)) return null;
+        Chunk chunk = getChunk(x, y, z);
+        if (chunk == null) return null;
+        int i = Chunk.index(lx(x), ly(y), lz(z));
+        BlockEntity entity = chunk.getBlockEntity(i);
+        if (entity != null) {
+            if (entity.isValid()) {
+                entity.sync(); // lazily computed entities catch up before anyone looks at them
+                return entity;
+            }
+            chunk.removeBlockEntity(i); // the block was replaced by a WorldWriter
         }
-        return furnaceStates.computeIfAbsent(key, k -> new FurnaceState());
+        byte id = chunk.get(lx(x), ly(y), lz(z));
+        entity = palette.get(id).createBlockEntity();
+        if (entity == null) return null;
+        chunk.putBlockEntity(i, id, entity);
+        entity.setWorld(this);
+        entity.sync();
+        return entity;
     }
 
     /**
-     * Remove o estado persistente de uma fornalha (inventários e progresso) numa coordenada específica.
-     * Este método é geralmente chamado quando um bloco de fornalha é destruído no mundo,
-     * garantindo que os dados associados àquela posição sejam eliminados da memória.
-     * * @param x Coordenada X da fornalha.
-     * @param y Coordenada Y da fornalha.
-     * @param z Coordenada Z da fornalha.
-     * @return O objeto {@link FurnaceState} que foi removido, ou null se não existisse nenhum estado naquela posição.
+     * Como {@link #getBlockEntity(int, int, int)}, mas só devolve o block entity se for do tipo indicado.
+     * @param type Classe do block entity (ex.: FurnaceState.class).
      */
-    public FurnaceState removeFurnaceState(int x, int y, int z) {
-        return furnaceStates.remove(new Vector3i(x, y, z));
+    public <T extends BlockEntity> T getBlockEntity(int x, int y, int z, Class<T> type) {
+        BlockEntity entity = getBlockEntity(x, y, z);
+        return type.isInstance(entity) ? type.cast(entity) : null;
     }
 
     /**
-     * Atualiza o progresso de fundição de todas as fornalhas ativas no mundo.
-     * @param tpf Tempo por frame.
-     * @param physicsSpace Espaço de física.
+     * Remove o block entity (inventários e progresso) de uma posição. O {@link #setBlock} já o faz
+     * quando o bloco muda.
+     * @return O block entity removido, ou null se não existisse nenhum naquela posição.
      */
-    public void updateAllFurnaces(float tpf, PhysicsSpace physicsSpace) {
-        // Usa um HashSet das keys para evitar ConcurrentModificationException
-        for (Vector3i key : new java.util.HashSet<>(furnaceStates.keySet())) {
-            FurnaceState state = furnaceStates.get(key);
+    public BlockEntity removeBlockEntity(int x, int y, int z) {
+        if (!inBounds(x, y, z)) return null;
+        Chunk chunk = getChunk(x, y, z);
+        return chunk == null ? null : chunk.removeBlockEntity(Chunk.index(lx(x), ly(y), lz(z)));
+    }
 
-            if (state != null) {
-                state.updateMelt(tpf);
+    /**
+     * Atualiza os block entities ativos dos chunks carregados (ex.: fornalhas a fundir). Os que
+     * ficam sem trabalho deixam de ser atualizados até voltarem a ser alterados, por isso o custo
+     * depende das máquinas a trabalhar e não de todas as que existem. Também avança o relógio do
+     * mundo (ver {@link #getWorldTick()}).
+     * @param tpf Tempo desde a última atualização.
+     * @return Número de block entities atualizados.
+     */
+    public int updateBlockEntities(float tpf) {
+        tickTime += tpf;
+        long elapsed = (long) (tickTime / TICK_SECONDS);
+        worldTick += elapsed;
+        tickTime -= elapsed * (double) TICK_SECONDS;
+
+        int kept = 0;
+        // Entities woken during the pass are appended and ticked in the same pass
+        for (int i = 0; i < activeBlockEntities.size(); i++) {
+            BlockEntity entity = activeBlockEntities.get(i);
+            boolean working = false;
+            if (entity.getWorld() == this) {
+                if (entity.isValid()) {
+                    working = entity.tick(tpf);
+                    // A tick that ends the work still changed the state
+                    if (working || entity.working) entity.getChunk().markUnsaved();
+                } else {
+                    entity.getChunk().removeBlockEntity(entity.getIndex());
+                }
             }
+            entity.working = working;
+            if (working) activeBlockEntities.set(kept++, entity);
+            else entity.active = false;
         }
+        int ticked = activeBlockEntities.size();
+        activeBlockEntities.subList(kept, ticked).clear();
+        return ticked;
+    }
+
+    /** Number of block entities with work to do. */
+    public int getActiveBlockEntityCount() {
+        return activeBlockEntities.size();
+    }
+
+    // Puts an entity in the active set, once
+    void activate(BlockEntity entity) {
+        if (entity.active) return;
+        entity.active = true;
+        activeBlockEntities.add(entity);
     }
 
 
@@ -669,62 +1234,4 @@ public class VoxelWorld {
         }
     }
 
-    /**
-     * Gera uma árvore padrão no mundo, composta por um tronco vertical de madeira e uma copa de folhas.
-     * O tronco tem uma altura variável entre 4 e 6 blocos. As folhas são geradas em redor do topo
-     * do tronco seguindo um cálculo de distância de Manhattan para criar um formato orgânico.
-     * * @param x Coordenada X da base do tronco.
-     * @param y Coordenada Y da base do tronco.
-     * @param z Coordenada Z da base do tronco.
-     */
-    private void generateTree(int x, int y, int z) {
-
-        int trunkHeight = 4 + (int) (Math.random() * 3);
-
-        // Tronco
-        for (int i = 0; i < trunkHeight; i++) {
-            safeSetBlock(x, y + i, z, WOOD);
-        }
-
-        int topY = y + trunkHeight;
-
-        // Folhas
-        for (int lx = -2; lx <= 2; lx++) {
-            for (int lz = -2; lz <= 2; lz++) {
-                for (int ly = -1; ly <= 2; ly++) {
-
-                    float dist = Math.abs(lx) + Math.abs(lz) + Math.abs(ly);
-                    if (dist <= 3) {
-                        safeSetBlock(x + lx, topY + ly, z + lz, LEAVES);
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Gera uma "Árvore Quente" (Hot Tree), típica de biomas áridos ou de alta temperatura.
-     * Esta variante gera apenas o tronco vertical de madeira, sem a presença de folhas,
-     * simulando uma árvore seca ou petrificada.
-     * * @param x Coordenada X da base do tronco.
-     * @param y Coordenada Y da base do tronco.
-     * @param z Coordenada Z da base do tronco.
-     */
-    private void generateHotTree(int x, int y, int z) {
-
-        int trunkHeight = 4 + (int) (Math.random() * 3);
-
-        // Tronco
-        for (int i = 0; i < trunkHeight; i++) {
-            safeSetBlock(x, y + i, z, WOOD);
-        }
-    }
-
-    private void safeSetBlock(int x, int y, int z, byte id) {
-        if (x < 0 || x >= sizeX) return;
-        if (y < 0 || y >= sizeY) return;
-        if (z < 0 || z >= sizeZ) return;
-
-        setBlock(x, y, z, id);
-    }
 }
@@ -0,0 +1,519 @@
+package jogo.voxel;
+
+import jogo.util.furnace.FurnaceState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves a {@link VoxelWorld} to a directory and loads it back. Voxels and block entities live in
+ * {@link RegionFile}s; world.dat holds the world height, the seed, the world clock and the block
+ * palette by name (so saved ids survive a reordered palette), plus the furnaces of older saves
+ * that kept them there (moved into their chunks as those are loaded).
+ * <p>
+ * Saving only rewrites the chunks changed since they were last saved or loaded; chunks that were
+ * only ever generated are never written, since the seed gives them back. A save can be split in
+ * two: {@link #snapshot} on the thread that owns the world, then {@link #write} while the world
+ * keeps changing. Chunks are read back a column at a time as the world streams them in.
+ * <p>
+ * All file access goes through one I/O thread ({@link #submit}), so reads and writes happen in the
+ * order they were submitted: a column read after its chunks were unloaded sees what they wrote.
+ */
+public class WorldStorage {
+    private static final String META_FILE = "world.dat";
+    private static final int MAGIC = 0x4A4F474F; // "JOGO"
+    // 1: fixed-size worlds (x, y and z sizes); 2: unbounded worlds (height only);
+    // 3: the world tick after the seed; furnace records in chunks end with the world tick they were
+    //    last synced to. Older saves load at tick 0 and their furnaces start counting when first observed
+    private static final int VERSION = 3;
+    // Region files kept open at once; the least recently used one is closed past this
+    private static final int MAX_OPEN_REGIONS = 32;
+
+    private final Path dir;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "world-io");
+        t.setDaemon(true);
+        return t;
+    });
+    // Saved block ids to current ids, from world.dat; null until a save is loaded (same palette)
+    private volatile byte[] remap;
+    // Furnaces that older saves kept in world.dat, by cell, until their chunk is read; I/O thread only after load
+    private LongObjectMap<FurnaceState> legacyFurnaces = new LongObjectMap<>();
+    // Writes of unloaded chunks that failed, retried before every later read or write; I/O thread only
+    private final List<Snapshot> unwritten = new ArrayList<>();
+    // Open region files by region key (see ChunkManager#key), null for files that do not exist; I/O thread only
+    private final Map<Long, RegionFile> regions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RegionFile> eldest) {
+            if (size() <= MAX_OPEN_REGIONS) return false;
+            closeRegion(eldest.getValue());
+            return true;
+        }
+    };
+
+    public WorldStorage(Path dir) {
+        this.dir = dir;
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /** Whether a saved world exists in the directory. */
+    public boolean exists() {
+        return Files.isRegularFile(dir.resolve(META_FILE));
+    }
+
+    /**
+     * Runs task on the I/O thread, after every read and write submitted before it.
+     * @return Future of the task's result.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        io.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Writes every unsaved loaded chunk to its region file, then world.dat, and waits for it.
+     * @return Number of chunks written.
+     */
+    public int save(VoxelWorld world) throws IOException {
+        Snapshot snapshot = snapshot(world);
+        try {
+            submit(() -> {
+                write(snapshot);
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            snapshot.markUnsaved();
+            throw new IOException("Interrupted while saving", e);
+        } catch (ExecutionException e) {
+            snapshot.markUnsaved();
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        } finally {
+            snapshot.release();
+        }
+        return snapshot.getChunkCount();
+    }
+
+    /** Waits for the submitted reads and writes, makes a last attempt at failed writes, then stops the I/O thread. */
+    public void close() {
+        submit(() -> {
+            retryUnwritten();
+            int lost = 0;
+            for (Snapshot snapshot : unwritten) lost += snapshot.getChunkCount();
+            if (lost > 0) System.err.println("Edições de " + lost + " chunks descarregados não foram guardadas");
+            for (RegionFile region : regions.values()) closeRegion(region);
+            regions.clear();
+            return null;
+        });
+        io.shutdown();
+        try {
+            io.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Captures everything a save needs, on the thread that owns the world: the unsaved chunks
+     * (sharing their voxel arrays copy-on-write, see {@link Chunk#shareVoxels()}, and with their
+     * block entities serialized) and the world metadata. The chunks count as saved from now on; call
+     * {@link Snapshot#markUnsaved()} if writing the snapshot fails. Only one snapshot may be
+     * pending at a time, and it must be {@link Snapshot#release() released} once written.
+     */
+    public Snapshot snapshot(VoxelWorld world) {
+        Snapshot snapshot = new Snapshot(this, world);
+        for (Chunk chunk : world.getLoadedChunks()) {
+            if (chunk.isUnsaved()) snapshot.add(chunk);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Writes a snapshot: the region files of its chunks, then world.dat. Safe to call from a
+     * background thread while the world keeps changing, but only from the I/O thread (inside a
+     * {@link #submit} task), like every other file access. Everything written is forced to disk.
+     */
+    public void write(Snapshot snapshot) throws IOException {
+        retryUnwritten();
+        writeRegions(snapshot);
+        writeMeta(snapshot);
+    }
+
+    /**
+     * Queues the region writes of chunks whose column is being unloaded. The chunks are discarded
+     * by the caller, so their voxel arrays are handed over without copying. If the write fails the
+     * chunks are kept: the write is retried before every later read or write, and a column read
+     * before it succeeds gets the kept chunks instead of the stale ones on disk.
+     */
+    void writeUnloaded(VoxelWorld world, List<Chunk> chunks) {
+        Snapshot snapshot = new Snapshot(this, world);
+        for (Chunk chunk : chunks) snapshot.add(chunk);
+        submit(() -> {
+            retryUnwritten();
+            try {
+                writeRegions(snapshot);
+            } catch (IOException e) {
+                System.err.println("Erro ao guardar " + chunks.size() + " chunks descarregados, a tentar de novo mais tarde: " + e);
+                unwritten.add(snapshot);
+            }
+            return null;
+        });
+    }
+
+    // Writes the kept chunks of failed unload writes; those that fail again stay for the next try
+    private void retryUnwritten() {
+        for (java.util.Iterator<Snapshot> it = unwritten.iterator(); it.hasNext(); ) {
+            Snapshot snapshot = it.next();
+            try {
+                writeRegions(snapshot);
+                it.remove();
+                System.out.println(snapshot.getChunkCount() + " chunks descarregados guardados depois de uma falha");
+            } catch (IOException e) {
+                return; // same cause as before, most likely; try again with the next request
+            }
+        }
+    }
+
+    // Takes chunk (cx,cy,cz) out of the failed writes: the newest copy, or null if none holds it
+    private SavedChunk takeUnwritten(int cx, int cy, int cz) {
+        SavedChunk newest = null;
+        for (Snapshot snapshot : unwritten) {
+            SavedChunk taken = snapshot.take(cx, cy, cz);
+            if (taken != null) newest = taken;
+        }
+        unwritten.removeIf(snapshot -> snapshot.getChunkCount() == 0);
+        return newest;
+    }
+
+    /** A chunk as read from its region file. */
+    static final class SavedChunk {
+        final byte[] voxels;        // current palette ids
+        final byte[] blockEntities; // see Chunk#saveBlockEntities
+        // Differs from the region file (took furnaces from world.dat, or its write failed), so it must be written again
+        final boolean unsaved;
+
+        SavedChunk(byte[] voxels, byte[] blockEntities, boolean unsaved) {
+            this.voxels = voxels;
+            this.blockEntities = blockEntities;
+            this.unsaved = unsaved;
+        }
+    }
+
+    /**
+     * Reads the saved chunks of column (cx,cz), layers 0 to countY - 1, on the I/O thread.
+     * @return Future of one saved chunk per layer, null where nothing was saved.
+     */
+    CompletableFuture<SavedChunk[]> readColumn(int cx, int cz, int countY) {
+        return submit(() -> {
+            retryUnwritten();
+            SavedChunk[] column = new SavedChunk[countY];
+            byte[] table = remap;
+            for (int cy = 0; cy < countY; cy++) {
+                if (!unwritten.isEmpty() && (column[cy] = takeUnwritten(cx, cy, cz)) != null) continue;
+                byte[] voxels = new byte[Chunk.VOLUME];
+                byte[] blockEntities;
+                try {
+                    RegionFile region = region(cx >> RegionFile.SHIFT, cy >> RegionFile.SHIFT, cz >> RegionFile.SHIFT, false);
+                    if (region == null) continue;
+                    blockEntities = region.readChunk(RegionFile.slot(cx, cy, cz), voxels);
+                    if (blockEntities == null) continue;
+                } catch (IOException e) {
+                    // Regenerated instead; the saved record is only replaced if the chunk is edited again
+                    System.err.println("Erro ao ler o chunk " + cx + "," + cy + "," + cz + ": " + e.getMessage());
+                    continue;
+                }
+                if (table != null) {
+                    for (int i = 0; i < Chunk.VOLUME; i++) voxels[i] = table[voxels[i] & 0xFF];
+                }
+                byte[] legacy = takeLegacyFurnaces(cx, cy, cz);
+                boolean migrated = legacy != null && blockEntities.length == 0;
+                column[cy] = new SavedChunk(voxels, migrated ? legacy : blockEntities, migrated);
+            }
+            return column;
+        });
+    }
+
+    // Removes the world.dat furnaces inside chunk (cx,cy,cz) and encodes them as its block entities
+    private byte[] takeLegacyFurnaces(int cx, int cy, int cz) throws IOException {
+        if (legacyFurnaces.isEmpty()) return null;
+        LongObjectMap<FurnaceState> byIndex = new LongObjectMap<>();
+        for (long cell : legacyFurnaces.keys()) {
+            int x = BlockPos.x(cell), y = BlockPos.y(cell), z = BlockPos.z(cell);
+            if (x >> Chunk.SHIFT != cx || y >> Chunk.SHIFT != cy || z >> Chunk.SHIFT != cz) continue;
+            byIndex.put(Chunk.index(x & Chunk.MASK, y & Chunk.MASK, z & Chunk.MASK), legacyFurnaces.remove(cell));
+        }
+        return byIndex.isEmpty() ? null : Chunk.encodeBlockEntities(byIndex);
+    }
+
+    private void writeRegions(Snapshot snapshot) throws IOException {
+        if (snapshot.chunks.isEmpty()) return;
+        Files.createDirectories(dir);
+        byte[] voxels = new byte[Chunk.VOLUME];
+        byte[] scratch = new byte[RegionFile.MAX_RECORD];
+        // Group the chunks by region; regions are written one file at a time
+        Map<Long, List<Integer>> byRegion = new java.util.TreeMap<>();
+        for (int i = 0; i < snapshot.chunks.size(); i++) {
+            Chunk chunk = snapshot.chunks.get(i);
+            long key = ChunkManager.key(chunk.getChunkX() >> RegionFile.SHIFT, chunk.getChunkY() >> RegionFile.SHIFT,
+                    chunk.getChunkZ() >> RegionFile.SHIFT);
+            byRegion.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        for (List<Integer> members : byRegion.values()) {
+            int count = members.size();
+            int[] slots = new int[count];
+            int[] lengths = new int[count];
+            byte[][] records = new byte[count][];
+            for (int n = 0; n < count; n++) {
+                int i = members.get(n);
+                Chunk chunk = snapshot.chunks.get(i);
+                byte[] shared = snapshot.voxels.get(i);
+                if (shared != null) System.arraycopy(shared, 0, voxels, 0, Chunk.VOLUME);
+                else java.util.Arrays.fill(voxels, snapshot.uniformIds.get(i));
+                // The record is the voxels followed by the block entities, see RegionFile
+                int voxelBytes = RegionFile.encode(voxels, scratch);
+                byte[] blockEntities = snapshot.blockEntities.get(i);
+                lengths[n] = voxelBytes + blockEntities.length;
+                records[n] = java.util.Arrays.copyOf(scratch, lengths[n]);
+                System.arraycopy(blockEntities, 0, records[n], voxelBytes, blockEntities.length);
+                slots[n] = RegionFile.slot(chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ());
+            }
+            Chunk first = snapshot.chunks.get(members.get(0));
+            int rx = first.getChunkX() >> RegionFile.SHIFT, ry = first.getChunkY() >> RegionFile.SHIFT, rz = first.getChunkZ() >> RegionFile.SHIFT;
+            try {
+                region(rx, ry, rz, true).write(slots, records, lengths, count);
+            } catch (IOException e) {
+                // Reopened next time, so the header is read back as it ended up on disk
+                closeRegion(regions.remove(ChunkManager.key(rx, ry, rz)));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The open region file (rx,ry,rz), opened on first use. Returns null if the file does not exist
+     * and create is not set. I/O thread only.
+     */
+    private RegionFile region(int rx, int ry, int rz, boolean create) throws IOException {
+        long key = ChunkManager.key(rx, ry, rz);
+        RegionFile region = regions.get(key);
+        if (region != null || (!create && regions.containsKey(key))) return region;
+        Path file = RegionFile.path(dir, rx, ry, rz);
+        region = create || Files.isRegularFile(file) ? RegionFile.open(file, create) : null;
+        regions.put(key, region);
+        return region;
+    }
+
+    private static void closeRegion(RegionFile region) {
+        if (region == null) return;
+        try {
+            region.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar um ficheiro de região: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the saved seed and block palette into the world; the chunks and their block entities
+     * are read as the world streams them in (see {@link VoxelWorld#setStorage}). Nothing is changed
+     * when there is no save or it was made for a world of another height. Call before the world
+     * loads any chunk.
+     * @return true if the world was loaded.
+     */
+    public boolean load(VoxelWorld world) throws IOException {
+        if (!exists()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(META_FILE))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a world save: " + dir);
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported world save version " + version);
+            // A fixed-size world is the part of an unbounded one that starts at the origin
+            if (version == 1) in.readInt();
+            int sizeY = in.readInt();
+            if (version == 1) in.readInt();
+            if (sizeY != world.getSizeY()) {
+                System.out.println("Saved world is " + sizeY + " blocks high, not loading it");
+                return false;
+            }
+            long seed = in.readLong();
+            long worldTick = version >= 3 ? in.readLong() : 0;
+
+            // Saved ids to current ids, matched by block name; unknown blocks become air
+            VoxelPalette palette = world.getPalette();
+            byte[] remap = new byte[256];
+            int paletteSize = in.readUnsignedByte();
+            for (int id = 0; id < paletteSize; id++) {
+                String name = in.readUTF();
+                for (int cur = 0; cur < palette.size(); cur++) {
+                    if (palette.get((byte) cur).getName().equals(name)) {
+                        remap[id] = (byte) cur;
+                        break;
+                    }
+                }
+            }
+
+            this.remap = remap;
+            world.setSeed(seed);
+            world.setWorldTick(worldTick);
+
+            // Furnaces kept here by older saves, in the furnace's legacy format
+            LongObjectMap<FurnaceState> furnaces = new LongObjectMap<>();
+            int furnaceCount = in.readInt();
+            for (int i = 0; i < furnaceCount; i++) {
+                long cell = BlockPos.pack(in.readInt(), in.readInt(), in.readInt());
+                FurnaceState state = new FurnaceState();
+                state.readLegacy(in);
+                furnaces.put(cell, state);
+            }
+            legacyFurnaces = furnaces;
+        }
+        return true;
+    }
+
+    // world.dat is written beside the old one, synced and moved over it, so a failed save keeps the last one
+    private void writeMeta(Snapshot snapshot) throws IOException {
+        Files.createDirectories(dir); // a new world may not have written any region yet
+        Path tmp = dir.resolve(META_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.sizeY);
+            out.writeLong(snapshot.seed);
+            out.writeLong(snapshot.worldTick);
+            out.writeByte(snapshot.blockNames.length);
+            for (String name : snapshot.blockNames) out.writeUTF(name);
+            // Furnaces of older saves whose chunk has not been read yet; runs on the I/O thread like readColumn
+            out.writeInt(legacyFurnaces.size());
+            for (long cell : legacyFurnaces.keys()) {
+                out.writeInt(BlockPos.x(cell));
+                out.writeInt(BlockPos.y(cell));
+                out.writeInt(BlockPos.z(cell));
+                legacyFurnaces.get(cell).writeLegacy(out);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(META_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** State captured by {@link #snapshot(VoxelWorld)}, written by {@link #write(Snapshot)}. */
+    public static final class Snapshot {
+        private final int sizeY;
+        private final long seed;
+        private final long worldTick;
+        private final String[] blockNames;
+        private final List<Chunk> chunks = new ArrayList<>();
+        private final List<byte[]> voxels = new ArrayList<>(); // shared with the chunks, null when uniform
+        private final List<Byte> uniformIds = new ArrayList<>();
+        private final List<byte[]> blockEntities = new ArrayList<>(); // serialized on the world's thread
+
+        private final WorldStorage storage;
+        private final VoxelWorld world;
+
+        private Snapshot(WorldStorage storage, VoxelWorld world) {
+            this.storage = storage;
+            this.world = world;
+            sizeY = world.getSizeY();
+            seed = world.getSeed();
+            worldTick = world.getWorldTick();
+            VoxelPalette palette = world.getPalette();
+            blockNames = new String[palette.size()];
+            for (int id = 0; id < blockNames.length; id++) blockNames[id] = palette.get((byte) id).getName();
+        }
+
+        // Shares the chunk's voxels with the snapshot; the chunk counts as saved from now on
+        private void add(Chunk chunk) {
+            chunks.add(chunk);
+            voxels.add(chunk.shareVoxels());
+            uniformIds.add(chunk.getUniformId());
+            blockEntities.add(chunk.saveBlockEntities(worldTick));
+            chunk.markSaved();
+        }
+
+        /** Number of chunks in the snapshot. */
+        public int getChunkCount() {
+            return chunks.size();
+        }
+
+        /** Bytes of chunk voxel arrays the snapshot shares with the world (not copied up front). */
+        public long getSharedBytes() {
+            long bytes = 0;
+            for (byte[] shared : voxels) if (shared != null) bytes += shared.length;
+            return bytes;
+        }
+
+        /**
+         * Ends copy-on-write sharing of the voxel arrays. Call on the world's thread once the
+         * snapshot is written (or dropped).
+         * @return Bytes the chunks had to copy because they were written while the snapshot was pending.
+         */
+        public long release() {
+            long copied = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                byte[] shared = voxels.get(i);
+                if (shared != null && chunks.get(i).releaseVoxels(shared)) copied += shared.length;
+            }
+            return copied;
+        }
+
+        /**
+         * Marks the snapshot's chunks unsaved again, after a failed write. Call on the world's thread.
+         * Chunks whose column was unloaded meanwhile were skipped by the unload write (they counted as
+         * saved), so they are queued for writing again instead.
+         */
+        public void markUnsaved() {
+            List<Chunk> unloaded = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                chunk.markUnsaved();
+                if (world.getChunkAt(chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ()) != chunk) unloaded.add(chunk);
+            }
+            if (!unloaded.isEmpty()) storage.writeUnloaded(world, unloaded);
+        }
+
+        // Removes chunk (cx,cy,cz) from the snapshot and returns it as read back, or null if it is not here
+        private SavedChunk take(int cx, int cy, int cz) {
+            for (int i = chunks.size() - 1; i >= 0; i--) {
+                Chunk chunk = chunks.get(i);
+                if (chunk.getChunkX() != cx || chunk.getChunkY() != cy || chunk.getChunkZ() != cz) continue;
+                byte[] voxels = new byte[Chunk.VOLUME];
+                if (this.voxels.get(i) != null) System.arraycopy(this.voxels.get(i), 0, voxels, 0, Chunk.VOLUME);
+                else java.util.Arrays.fill(voxels, uniformIds.get(i));
+                SavedChunk saved = new SavedChunk(voxels, blockEntities.get(i), true);
+                chunks.remove(i);
+                this.voxels.remove(i);
+                uniformIds.remove(i);
+                blockEntities.remove(i);
+                return saved;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package jogo.voxel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bulk voxel writes for world generation and large scripted edits. Writes go straight into chunk
+ * storage; the chunks they touch, and the neighbours across any touched chunk border, are marked
+ * dirty once on {@link #commit()} instead of on every voxel as {@link VoxelWorld#setBlock} does.
+ * Reads through the world, including the heightmap, see the writes immediately. Writes into
+ * chunks that are not loaded are ignored.
+ * <p>
+ * A writer is not thread-safe and must be used on the thread that owns the world.
+ */
+public class WorldWriter implements AutoCloseable {
+    // Per-chunk flags: one bit per chunk face written (MeshBuilder.Face order), plus TOUCHED
+    private static final int TOUCHED = 1 << 6;
+    private static final int[][] FACE_DIRS = {
+            { 1, 0, 0}, {-1, 0, 0},
+            { 0, 1, 0}, { 0,-1, 0},
+            { 0, 0, 1}, { 0, 0,-1},
+    };
+
+    private final VoxelWorld world;
+    private final int countY;
+    // Chunks written since the last commit, in order, with TOUCHED | the face bits written
+    private final Map<Chunk, int[]> touched = new LinkedHashMap<>();
+    private Chunk lastChunk;
+    private int[] lastFlags;
+
+    WorldWriter(VoxelWorld world, int countY) {
+        this.world = world;
+        this.countY = countY;
+    }
+
+    /** Writes one voxel; positions outside the world or in chunks not loaded are ignored. */
+    public void set(int x, int y, int z, byte id) {
+        if (!world.inBounds(x, y, z)) return;
+        Chunk chunk = world.getChunkAt(x >> Chunk.SHIFT, y >> Chunk.SHIFT, z >> Chunk.SHIFT);
+        if (chunk == null) return;
+        int lx = x & Chunk.MASK, ly = y & Chunk.MASK, lz = z & Chunk.MASK;
+        chunk.set(lx, ly, lz, id);
+        world.getHeightmap().update(world, x, z, y, y, id);
+        touch(chunk, edgeBits(lx, lx, ly, ly, lz, lz));
+    }
+
+    /**
+     * Fills the box from (x0,y0,z0) to (x1,y1,z1), both inclusive, clipped to the world height and
+     * to the loaded chunks. Chunks the box covers completely become uniform without touching their
+     * voxels one by one.
+     */
+    public void fill(int x0, int y0, int z0, int x1, int y1, int z1, byte id) {
+        y0 = Math.max(y0, 0);
+        y1 = Math.min(y1, world.getSizeY() - 1);
+        if (x0 > x1 || y0 > y1 || z0 > z1) return;
+        for (int cx = x0 >> Chunk.SHIFT; cx <= x1 >> Chunk.SHIFT; cx++) {
+            for (int cy = y0 >> Chunk.SHIFT; cy <= y1 >> Chunk.SHIFT; cy++) {
+                for (int cz = z0 >> Chunk.SHIFT; cz <= z1 >> Chunk.SHIFT; cz++) {
+                    // Part of the box inside this chunk, in chunk-local coordinates
+                    int ax = Math.max(x0 - (cx << Chunk.SHIFT), 0), bx = Math.min(x1 - (cx << Chunk.SHIFT), Chunk.MASK);
+                    int ay = Math.max(y0 - (cy << Chunk.SHIFT), 0), by = Math.min(y1 - (cy << Chunk.SHIFT), Chunk.MASK);
+                    int az = Math.max(z0 - (cz << Chunk.SHIFT), 0), bz = Math.min(z1 - (cz << Chunk.SHIFT), Chunk.MASK);
+                    Chunk chunk = world.getChunkAt(cx, cy, cz);
+                    if (chunk == null) continue;
+                    if (ax == 0 && ay == 0 && az == 0 && bx == Chunk.MASK && by == Chunk.MASK && bz == Chunk.MASK) {
+                        chunk.fill(id);
+                    } else {
+                        for (int x = ax; x <= bx; x++)
+                            for (int z = az; z <= bz; z++)
+                                for (int y = ay; y <= by; y++) chunk.set(x, y, z, id);
+                    }
+                    touch(chunk, edgeBits(ax, bx, ay, by, az, bz));
+                }
+            }
+        }
+        for (int x = x0; x <= x1; x++)
+            for (int z = z0; z <= z1; z++) world.getHeightmap().update(world, x, z, y0, y1, id);
+    }
+
+    /**
+     * Overwrites the whole world column (x,z), bottom to top, with the voxels of column, which must
+     * hold at least one entry per chunk layer (chunk count along y times {@link Chunk#SIZE}).
+     */
+    public void setColumn(int x, int z, byte[] column) {
+        int cx = x >> Chunk.SHIFT, cz = z >> Chunk.SHIFT;
+        if (world.getChunkAt(cx, 0, cz) == null) return;
+        int lx = x & Chunk.MASK, lz = z & Chunk.MASK;
+        int edges = edgeBits(lx, lx, 0, Chunk.MASK, lz, lz);
+        for (int cy = 0; cy < countY; cy++) {
+            Chunk chunk = world.getChunkAt(cx, cy, cz);
+            chunk.setColumn(lx, lz, column, cy << Chunk.SHIFT);
+            touch(chunk, edges);
+        }
+        world.getHeightmap().recompute(x, z, column);
+    }
+
+    /**
+     * Marks every chunk written since the last commit dirty, together with the neighbours across
+     * the borders that were written. Returns the number of chunks written.
+     */
+    public int commit() {
+        int written = touched.size();
+        for (Map.Entry<Chunk, int[]> e : touched.entrySet()) {
+            Chunk chunk = e.getKey();
+            int flags = e.getValue()[0];
+            world.markChunkDirty(chunk);
+            for (int f = 0; f < 6; f++) {
+                if ((flags & (1 << f)) == 0) continue;
+                Chunk n = world.getChunkAt(chunk.getChunkX() + FACE_DIRS[f][0], chunk.getChunkY() + FACE_DIRS[f][1],
+                        chunk.getChunkZ() + FACE_DIRS[f][2]);
+                if (n != null) world.markChunkDirty(n);
+            }
+        }
+        touched.clear();
+        lastChunk = null;
+        lastFlags = null;
+        return written;
+    }
+
+    /** Same as {@link #commit()}, so a writer can be used in try-with-resources. */
+    @Override
+    public void close() {
+        commit();
+    }
+
+    private void touch(Chunk chunk, int edges) {
+        // Consecutive writes usually hit the same chunk
+        if (chunk != lastChunk) {
+            lastFlags = touched.computeIfAbsent(chunk, c -> new int[1]);
+            lastChunk = chunk;
+        }
+        lastFlags[0] |= TOUCHED | edges;
+    }
+
+    // Face bits of a chunk-local box [a,b] on each axis that lies on the chunk border
+    private static int edgeBits(int ax, int bx, int ay, int by, int az, int bz) {
+        int bits = 0;
+        if (bx == Chunk.MASK) bits |= 1;
+        if (ax == 0) bits |= 1 << 1;
+        if (by == Chunk.MASK) bits |= 1 << 2;
+        if (ay == 0) bits |= 1 << 3;
+        if (bz == Chunk.MASK) bits |= 1 << 4;
+        if (az == 0) bits |= 1 << 5;
+        return bits;
+    }
+}
@@ -4,6 +4,8 @@ import com.jme3.asset.AssetManager;
 import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
 import com.jme3.texture.Texture2D;
+import jogo.util.furnace.FurnaceState;
+import jogo.voxel.BlockEntity;
 import jogo.voxel.VoxelBlockType;
 
 public class FurnaceBlockType extends VoxelBlockType {
@@ -21,6 +23,11 @@ public class FurnaceBlockType extends VoxelBlockType {
         return "COMPACT";
     }
 
+    @Override
+    public BlockEntity createBlockEntity() {
+        return new FurnaceState();
+    }
+
     @Override
     public Material getMaterial(AssetManager assetManager) {
         Texture2D tex = (Texture2D) assetManager.loadTexture("Textures/furnace.png");
@@ -0,0 +1,49 @@
+#import "Common/ShaderLib/GLSLCompat.glsllib"
+#ifndef UNSHADED
+    #import "Common/ShaderLib/BlinnPhongLighting.glsllib"
+    #import "Common/ShaderLib/Lighting.glsllib"
+#endif
+
+uniform sampler2DArray m_DiffuseArray;
+
+varying vec3 texCoord;
+varying vec3 vNormal;
+varying vec3 vPos;
+
+#ifndef UNSHADED
+    uniform vec4 g_AmbientLightColor;
+    uniform vec4 g_LightData[NB_LIGHTS];
+    uniform vec4 m_Ambient;
+    uniform vec4 m_Specular;
+    uniform float m_Shininess;
+#endif
+
+void main(){
+    vec4 diffuseColor = texture2DArray(m_DiffuseArray, texCoord);
+
+    #ifdef UNSHADED
+        gl_FragColor.rgb = diffuseColor.rgb;
+    #else
+        // Same single-pass Blinn-Phong as Lighting.j3md with UseMaterialColors and white diffuse
+        vec3 viewDir = normalize(-vPos);
+        vec3 normal = normalize(vNormal);
+        if (!gl_FrontFacing) {
+            normal = -normal;
+        }
+        gl_FragColor.rgb = m_Ambient.rgb * g_AmbientLightColor.rgb * diffuseColor.rgb;
+        for (int i = 0; i < NB_LIGHTS; i += 3) {
+            vec4 lightColor = g_LightData[i];
+            vec4 lightDir;
+            vec3 lightVec;
+            lightComputeDir(vPos, lightColor.w, g_LightData[i + 1], lightDir, lightVec);
+            float spotFallOff = 1.0;
+            if (lightColor.w > 1.0) {
+                spotFallOff = computeSpotFalloff(g_LightData[i + 2], lightVec);
+            }
+            vec2 light = computeLighting(normal, viewDir, normalize(lightDir.xyz), lightDir.w * spotFallOff, m_Shininess);
+            gl_FragColor.rgb += lightColor.rgb * diffuseColor.rgb * light.x
+                              + lightColor.rgb * m_Specular.rgb * light.y;
+        }
+    #endif
+    gl_FragColor.a = 1.0;
+}
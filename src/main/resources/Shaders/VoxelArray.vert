@@ -0,0 +1,23 @@
+#import "Common/ShaderLib/GLSLCompat.glsllib"
+#import "Common/ShaderLib/Instancing.glsllib"
+
+attribute vec4 inPosition; // chunk-local x, y, z and face id (bytes)
+attribute vec4 inTexCoord; // u, v, texture array layer, unused (bytes)
+
+varying vec3 texCoord;
+varying vec3 vNormal;
+varying vec3 vPos;
+
+// Indexed by MeshBuilder.Face ordinal: PX, NX, PY, NY, PZ, NZ
+const vec3 FACE_NORMALS[6] = vec3[6](
+    vec3( 1.0,  0.0,  0.0), vec3(-1.0,  0.0,  0.0),
+    vec3( 0.0,  1.0,  0.0), vec3( 0.0, -1.0,  0.0),
+    vec3( 0.0,  0.0,  1.0), vec3( 0.0,  0.0, -1.0));
+
+void main(){
+    vec4 modelSpacePos = vec4(inPosition.xyz, 1.0);
+    gl_Position = TransformWorldViewProjection(modelSpacePos);
+    texCoord = inTexCoord.xyz;
+    vPos = TransformWorldView(modelSpacePos).xyz;
+    vNormal = normalize(TransformNormal(FACE_NORMALS[int(inPosition.w)]));
+}